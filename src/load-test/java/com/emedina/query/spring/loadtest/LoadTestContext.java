@@ -0,0 +1,59 @@
+package com.emedina.query.spring.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.emedina.query.spring.QueryBusWarmUp;
+import com.emedina.query.spring.Registry;
+import com.emedina.query.spring.SpringQueryBus;
+
+/**
+ * Bootstraps the Spring context shared by the load-test entry points and writes their results.
+ *
+ * @author Enrique Medina Montenegro
+ */
+final class LoadTestContext {
+
+    private LoadTestContext() {
+    }
+
+    /**
+     * Creates and refreshes a context holding the simulated handler, the registry and the query bus, plus a
+     * {@link QueryBusWarmUp} when the settings ask for it.
+     *
+     * @param settings the load test settings
+     * @return the refreshed application context, owned by the caller
+     */
+    static AnnotationConfigApplicationContext start(final LoadTestSettings settings) {
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.registerBean(SimulatedLatencyQueryHandler.class,
+            () -> new SimulatedLatencyQueryHandler(settings.handlerLatency()));
+        applicationContext.registerBean(Registry.class, () -> new Registry(applicationContext));
+        applicationContext.registerBean(SpringQueryBus.class,
+            () -> new SpringQueryBus(applicationContext.getBean(Registry.class)));
+        if (settings.warmUp()) {
+            applicationContext.registerBean(QueryBusWarmUp.class,
+                () -> new QueryBusWarmUp(applicationContext.getBean(Registry.class),
+                    applicationContext.getBean(SpringQueryBus.class), List.of(new SimulatedLatencyQuery(-1))));
+        }
+        applicationContext.refresh();
+        return applicationContext;
+    }
+
+    /**
+     * Writes the JSON results to the configured output file and echoes them to the standard output.
+     *
+     * @param settings the load test settings
+     * @param json     the results
+     * @throws IOException if the output file cannot be written
+     */
+    static void write(final LoadTestSettings settings, final String json) throws IOException {
+        Files.createDirectories(settings.output().toAbsolutePath().getParent());
+        Files.writeString(settings.output(), json);
+        System.out.print(json);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.emedina.query.spring.loadtest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.emedina.query.spring.Registry;
+import com.emedina.query.spring.SpringQueryBus;
+import com.emedina.sharedkernel.query.core.QueryBus;
+
+/**
+ * Entry point of the end-to-end load test: boots a real Spring context with a {@link Registry} and a
+ * {@link SpringQueryBus}, drives it at a fixed arrival rate once per threading model and writes the latency
+ * percentiles as JSON.
+ * <p>
+ * Run it with {@code mvn -B verify -Pload-test}; every {@code loadtest.*} property of the profile can be overridden on
+ * the command line, e.g. {@code -Dloadtest.rate=5000 -Dloadtest.modes=VIRTUAL}.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class LoadTestHarness {
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        List<LoadTestResult> results = new ArrayList<>();
+        try (AnnotationConfigApplicationContext applicationContext = LoadTestContext.start(settings)) {
+            OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(
+                applicationContext.getBean(QueryBus.class), settings);
+            for (ThreadMode mode : settings.modes()) {
+                results.add(generator.run(mode));
+            }
+        }
+
+        String json = results.stream()
+            .map(LoadTestResult::toJson)
+            .collect(Collectors.joining(",\n  ", "[\n  ", "\n]\n"));
+
+        LoadTestContext.write(settings, json);
+    }
+
+}
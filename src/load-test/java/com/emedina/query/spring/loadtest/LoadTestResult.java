@@ -0,0 +1,60 @@
+package com.emedina.query.spring.loadtest;
+
+import java.util.Locale;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Outcome of the measured phase of a load test run for a single threading model.
+ *
+ * @param mode         threading model that executed the queries
+ * @param settings     settings of the run
+ * @param requests     number of queries sent
+ * @param errors       number of queries that returned a left or threw
+ * @param achievedRate completed queries per second over the measured phase
+ * @param histogram    latency histogram, in nanoseconds
+ * @author Enrique Medina Montenegro
+ */
+record LoadTestResult(ThreadMode mode, LoadTestSettings settings, long requests, long errors, double achievedRate,
+    Histogram histogram) {
+
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9, 99.99 };
+
+    /**
+     * Renders this result as a JSON object, with latencies expressed in microseconds.
+     *
+     * @return the JSON representation
+     */
+    String toJson() {
+        StringBuilder percentiles = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            percentiles.append(String.format(Locale.ROOT, "\"p%s\": %.1f, ",
+                Double.toString(percentile).replaceAll("\\.0$", ""),
+                micros(this.histogram.getValueAtPercentile(percentile))));
+        }
+
+        return String.format(Locale.ROOT, """
+            {
+                "mode": "%s",
+                "javaVersion": "%s",
+                "availableProcessors": %d,
+                "targetRate": %.1f,
+                "achievedRate": %.1f,
+                "handlerLatencyMillis": %d,
+                "platformThreads": %d,
+                "durationSeconds": %d,
+                "requests": %d,
+                "errors": %d,
+                "latencyMicros": { %s"mean": %.1f, "max": %.1f }
+              }""",
+            this.mode, System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(),
+            this.settings.rate(), this.achievedRate, this.settings.handlerLatency().toMillis(),
+            this.settings.platformThreads(), this.settings.duration().toSeconds(), this.requests, this.errors,
+            percentiles, this.histogram.getMean() / 1_000.0, micros(this.histogram.getMaxValue()));
+    }
+
+    private static double micros(final long nanos) {
+        return nanos / 1_000.0;
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.emedina.query.spring.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Settings of a load test run, read from system properties prefixed with {@code loadtest.}.
+ *
+ * @param rate            target arrival rate in queries per second
+ * @param warmup          duration of the warm-up phase, whose latencies are discarded
+ * @param duration        duration of the measured phase
+ * @param handlerLatency  time spent by the handler on every query
+ * @param platformThreads size of the platform thread pool
+ * @param modes           threading models to run, in order
+ * @param warmUp          whether the query bus is warmed up before the context reports ready
+ * @param output          file where the machine-readable results are written
+ * @author Enrique Medina Montenegro
+ */
+record LoadTestSettings(double rate, Duration warmup, Duration duration, Duration handlerLatency, int platformThreads,
+    List<ThreadMode> modes, boolean warmUp, Path output) {
+
+    /**
+     * Reads the settings from system properties, falling back to sensible defaults.
+     *
+     * @return the load test settings
+     */
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+            Double.parseDouble(System.getProperty("loadtest.rate", "2000")),
+            Duration.ofSeconds(Long.getLong("loadtest.warmupSeconds", 10)),
+            Duration.ofSeconds(Long.getLong("loadtest.durationSeconds", 60)),
+            Duration.ofMillis(Long.getLong("loadtest.handlerLatencyMillis", 5)),
+            Integer.getInteger("loadtest.platformThreads", 200),
+            Arrays.stream(System.getProperty("loadtest.modes", "PLATFORM,VIRTUAL").split(","))
+                .map(String::trim)
+                .map(ThreadMode::valueOf)
+                .toList(),
+            Boolean.getBoolean("loadtest.warmUp"),
+            Path.of(System.getProperty("loadtest.output", "target/load-test/results.json")));
+    }
+
+}
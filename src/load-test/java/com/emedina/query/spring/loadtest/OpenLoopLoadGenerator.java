@@ -0,0 +1,113 @@
+package com.emedina.query.spring.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.emedina.sharedkernel.query.core.QueryBus;
+
+import io.vavr.control.Either;
+
+/**
+ * Issues queries against a {@link QueryBus} at a fixed arrival rate, regardless of how fast they complete.
+ * <p>
+ * Latency is measured from the time each query was <em>scheduled</em> to be sent, not from the time it was actually
+ * handed to the executor, so that a stalled bus shows up in the percentiles instead of silently lowering the offered
+ * load (coordinated omission).
+ *
+ * @author Enrique Medina Montenegro
+ */
+class OpenLoopLoadGenerator {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(1);
+
+    private final QueryBus queryBus;
+    private final LoadTestSettings settings;
+
+    /**
+     * Creates a new load generator.
+     *
+     * @param queryBus the query bus under test
+     * @param settings the load test settings
+     */
+    OpenLoopLoadGenerator(final QueryBus queryBus, final LoadTestSettings settings) {
+        this.queryBus = queryBus;
+        this.settings = settings;
+    }
+
+    /**
+     * Runs the warm-up phase followed by the measured phase using the given threading model.
+     *
+     * @param mode the threading model executing the queries
+     * @return the results of the measured phase
+     * @throws InterruptedException if interrupted while waiting for in-flight queries
+     */
+    LoadTestResult run(final ThreadMode mode) throws InterruptedException {
+        try (ExecutorService executor = mode.newExecutor(this.settings)) {
+            this.drive(executor, this.settings.warmup(), new ConcurrentHistogram(3), new LongAdder());
+
+            Histogram histogram = new ConcurrentHistogram(3);
+            LongAdder errors = new LongAdder();
+            long start = System.nanoTime();
+            long requests = this.drive(executor, this.settings.duration(), histogram, errors);
+            long elapsed = System.nanoTime() - start;
+
+            return new LoadTestResult(mode, this.settings, requests, errors.sum(),
+                requests / (elapsed / (double) TimeUnit.SECONDS.toNanos(1)), histogram);
+        }
+    }
+
+    /**
+     * Sends queries at the target rate for the given duration and waits for all of them to complete.
+     *
+     * @param executor  executor running the queries
+     * @param duration  how long to keep sending queries
+     * @param histogram where to record the latency of each query, in nanoseconds
+     * @param errors    incremented for every query that returned a left or threw
+     * @return the number of queries sent
+     * @throws InterruptedException if interrupted while waiting for in-flight queries
+     */
+    private long drive(final ExecutorService executor, final Duration duration, final Histogram histogram,
+        final LongAdder errors) throws InterruptedException {
+        long interval = Math.round(TimeUnit.SECONDS.toNanos(1) / this.settings.rate());
+        long requests = duration.toNanos() / interval;
+        CountDownLatch completed = new CountDownLatch(Math.toIntExact(requests));
+
+        long start = System.nanoTime();
+        for (long sequence = 0; sequence < requests; sequence++) {
+            long intendedStart = start + sequence * interval;
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            SimulatedLatencyQuery query = new SimulatedLatencyQuery(sequence);
+            executor.execute(() -> {
+                try {
+                    Either<String, Long> result = this.queryBus.query(query);
+                    if (result.isLeft()) {
+                        errors.increment();
+                    }
+                } catch (RuntimeException e) {
+                    errors.increment();
+                } finally {
+                    histogram.recordValue(System.nanoTime() - intendedStart);
+                    completed.countDown();
+                }
+            });
+        }
+
+        if (!completed.await(duration.plus(DRAIN_TIMEOUT).toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new IllegalStateException("Timed out waiting for " + completed.getCount() + " in-flight queries");
+        }
+
+        return requests;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.emedina.query.spring.loadtest;
+
+import com.emedina.sharedkernel.query.Query;
+
+/**
+ * Query dispatched by the load generator; carries the sequence number of the request that issued it.
+ *
+ * @param sequence monotonically increasing request number
+ * @author Enrique Medina Montenegro
+ */
+record SimulatedLatencyQuery(long sequence) implements Query {
+}
@@ -0,0 +1,38 @@
+package com.emedina.query.spring.loadtest;
+
+import java.time.Duration;
+
+import com.emedina.sharedkernel.query.core.QueryHandler;
+
+import io.vavr.control.Either;
+
+/**
+ * Query handler that blocks for a fixed amount of time, standing in for a handler that waits on I/O.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class SimulatedLatencyQueryHandler implements QueryHandler<String, Long, SimulatedLatencyQuery> {
+
+    private final Duration latency;
+
+    /**
+     * Creates a new handler that sleeps for the given latency on every query.
+     *
+     * @param latency time spent inside the handler per query
+     */
+    public SimulatedLatencyQueryHandler(final Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public Either<String, Long> handle(final SimulatedLatencyQuery query) {
+        try {
+            Thread.sleep(this.latency);
+            return Either.right(query.sequence());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Either.left("Interrupted while handling query " + query.sequence());
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.emedina.query.spring.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.emedina.query.spring.QueryBusWarmUp;
+import com.emedina.sharedkernel.query.core.QueryBus;
+
+/**
+ * Measures how quickly a freshly started JVM serves queries at full speed: the JVM uptime when the context is ready and
+ * when the very first query has returned, the latency of that query and the time until the throughput of a closed loop
+ * of queries settles.
+ * <p>
+ * Compare runs with and without {@link QueryBusWarmUp} ({@code -Dloadtest.warmUp=true}) and with and without a JDK AOT
+ * cache ({@code -Dloadtest.jvmArgs=-XX:AOTCache=target/app.aot}), selecting this class with
+ * {@code -Dloadtest.mainClass=com.emedina.query.spring.loadtest.StartupBenchmark}. Use
+ * {@code -Dloadtest.handlerLatencyMillis=0} so that the handler does not hide the cost of the dispatch path.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class StartupBenchmark {
+
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double STEADY_STATE_RATIO = 0.9;
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        if (settings.duration().toNanos() < WINDOW_NANOS) {
+            throw new IllegalArgumentException("Duration must cover at least one throughput window of "
+                + TimeUnit.NANOSECONDS.toMillis(WINDOW_NANOS) + " ms: " + settings.duration());
+        }
+
+        long contextStart = System.nanoTime();
+        try (AnnotationConfigApplicationContext applicationContext = LoadTestContext.start(settings)) {
+            long ready = System.nanoTime();
+            long uptimeAtReady = ManagementFactory.getRuntimeMXBean().getUptime();
+            QueryBus queryBus = applicationContext.getBean(QueryBus.class);
+
+            queryBus.query(new SimulatedLatencyQuery(0));
+            long firstQuery = System.nanoTime() - ready;
+            long uptimeAtFirstQuery = ManagementFactory.getRuntimeMXBean().getUptime();
+
+            List<Long> windows = sampleThroughput(queryBus, settings);
+            double steadyThroughput = steadyThroughput(windows);
+            int steadyWindow = 0;
+            while (windows.get(steadyWindow) < steadyThroughput * STEADY_STATE_RATIO) {
+                steadyWindow++;
+            }
+
+            LoadTestContext.write(settings, String.format(Locale.ROOT, """
+                [
+                  {
+                    "warmUp": %s,
+                    "javaVersion": "%s",
+                    "jvmUptimeAtReadyMillis": %d,
+                    "jvmUptimeAtFirstQueryMillis": %d,
+                    "contextStartMillis": %.1f,
+                    "firstQueryMicros": %.1f,
+                    "timeToSteadyStateMillis": %d,
+                    "steadyStateQueriesPerSecond": %.1f
+                  }
+                ]
+                """,
+                settings.warmUp(), System.getProperty("java.version"),
+                uptimeAtReady, uptimeAtFirstQuery, (ready - contextStart) / 1_000_000.0,
+                firstQuery / 1_000.0, TimeUnit.NANOSECONDS.toMillis((steadyWindow + 1) * WINDOW_NANOS),
+                steadyThroughput * TimeUnit.SECONDS.toNanos(1) / WINDOW_NANOS));
+        }
+    }
+
+    /**
+     * Sends queries back to back for the configured duration, counting how many complete in each window.
+     *
+     * @param queryBus the query bus under test
+     * @param settings the load test settings
+     * @return the number of completed queries per window, in order
+     */
+    private static List<Long> sampleThroughput(final QueryBus queryBus, final LoadTestSettings settings) {
+        List<Long> windows = new ArrayList<>();
+        long end = System.nanoTime() + settings.duration().toNanos();
+        long sequence = 1;
+        while (System.nanoTime() < end) {
+            long windowEnd = System.nanoTime() + WINDOW_NANOS;
+            long completed = 0;
+            while (System.nanoTime() < windowEnd) {
+                queryBus.query(new SimulatedLatencyQuery(sequence++));
+                completed++;
+            }
+            windows.add(completed);
+        }
+        return windows;
+    }
+
+    /**
+     * Estimates the steady-state throughput as the median of the second half of the windows.
+     *
+     * @param windows the number of completed queries per window
+     * @return the steady-state number of queries per window
+     */
+    private static double steadyThroughput(final List<Long> windows) {
+        List<Long> tail = windows.subList(windows.size() / 2, windows.size()).stream().sorted().toList();
+        return tail.get(tail.size() / 2);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.emedina.query.spring.loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threading model used to execute the queries issued by the load generator.
+ *
+ * @author Enrique Medina Montenegro
+ */
+enum ThreadMode {
+
+    /**
+     * A fixed-size pool of platform threads; requests queue up once every thread is busy.
+     */
+    PLATFORM {
+        @Override
+        ExecutorService newExecutor(final LoadTestSettings settings) {
+            return Executors.newFixedThreadPool(settings.platformThreads());
+        }
+    },
+
+    /**
+     * A new virtual thread per request.
+     */
+    VIRTUAL {
+        @Override
+        ExecutorService newExecutor(final LoadTestSettings settings) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+    };
+
+    /**
+     * Creates the executor that runs the queries for this threading model.
+     *
+     * @param settings the load test settings
+     * @return a new executor service owned by the caller
+     */
+    abstract ExecutorService newExecutor(LoadTestSettings settings);
+
+}
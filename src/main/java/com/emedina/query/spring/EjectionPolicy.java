@@ -0,0 +1,77 @@
+package com.emedina.query.spring;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * When a {@link ReplicaRouter} stops routing to a handler whose error rate keeps rising, and for how long.
+ * <p>
+ * The error rate is an exponentially weighted moving average of the outcome of recent queries, where an exception
+ * counts as an error; its span is {@code minRequests}. Lefts are ordinary results on this bus, such as not found or
+ * validation errors, so they only count as errors when {@code countsAsError} says so. The last handler of a pool still
+ * routed to is never ejected.
+ *
+ * @param maxErrorRate  error rate, between 0 and 1, above which a handler is ejected
+ * @param minRequests   number of queries a handler must have handled since it was last admitted before it can be
+ *                      ejected
+ * @param ejectionTime  how long an ejected handler is left out before being admitted again
+ * @param countsAsError tells, given the value of a left, whether it reveals an unhealthy handler
+ * @author Enrique Medina Montenegro
+ */
+public record EjectionPolicy(double maxErrorRate, int minRequests, Duration ejectionTime,
+    Predicate<Object> countsAsError) {
+
+    private static final Predicate<Object> NO_LEFT = left -> false;
+
+    /**
+     * Validates the policy.
+     *
+     * @throws IllegalArgumentException if any of the values is out of range
+     */
+    public EjectionPolicy {
+        if (!(maxErrorRate >= 0.0 && maxErrorRate <= 1.0)) {
+            throw new IllegalArgumentException("Maximum error rate must be between 0 and 1: " + maxErrorRate);
+        }
+        if (minRequests < 1) {
+            throw new IllegalArgumentException("Minimum requests must be positive: " + minRequests);
+        }
+        if (ejectionTime == null || ejectionTime.isNegative() || ejectionTime.isZero()) {
+            throw new IllegalArgumentException("Ejection time must be positive: " + ejectionTime);
+        }
+        Objects.requireNonNull(countsAsError, "countsAsError");
+    }
+
+    /**
+     * Creates a new policy under which only exceptions count as errors.
+     *
+     * @param maxErrorRate error rate, between 0 and 1, above which a handler is ejected
+     * @param minRequests  number of queries a handler must have handled since it was last admitted before it can be
+     *                     ejected
+     * @param ejectionTime how long an ejected handler is left out before being admitted again
+     * @throws IllegalArgumentException if any of the values is out of range
+     */
+    public EjectionPolicy(final double maxErrorRate, final int minRequests, final Duration ejectionTime) {
+        this(maxErrorRate, minRequests, ejectionTime, NO_LEFT);
+    }
+
+    /**
+     * Ejects a handler for 30 seconds once more than half of its last 20 or so queries threw an exception.
+     *
+     * @return the default ejection policy
+     */
+    public static EjectionPolicy defaults() {
+        return new EjectionPolicy(0.5, 20, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Counts the lefts matching the given classifier as errors too, for example those reporting a connection failure.
+     *
+     * @param countsAsError tells, given the value of a left, whether it reveals an unhealthy handler
+     * @return a copy of this policy with the given classifier
+     */
+    public EjectionPolicy withCountsAsError(final Predicate<Object> countsAsError) {
+        return new EjectionPolicy(this.maxErrorRate, this.minRequests, this.ejectionTime, countsAsError);
+    }
+
+}
@@ -0,0 +1,232 @@
+package com.emedina.query.spring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emedina.sharedkernel.query.Query;
+import com.emedina.sharedkernel.query.core.QueryHandler;
+
+import io.vavr.control.Either;
+
+/**
+ * Bounds the memory taken by the results of the queries in flight, as estimated by their {@link ResultSizeAware}
+ * handlers.
+ * <p>
+ * Before a {@link ResultSizeAware} handler runs, its estimate is reserved from the budget and it is given back once the
+ * handler returns. A query that does not fit waits, first come first served, for up to {@code maxWait}; if it still
+ * does not fit, or if its estimate exceeds the whole budget, the handler's
+ * {@link ResultSizeAware#onBudgetExceeded(MemoryBudgetExceeded)} left is returned without running it. Handlers that
+ * do not implement {@link ResultSizeAware} are not accounted for.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class MemoryBudget {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MemoryBudget.class);
+
+    private static final long BYTES_PER_PERMIT = 1024;
+
+    private static final MemoryBudget UNLIMITED = new MemoryBudget(BYTES_PER_PERMIT * Integer.MAX_VALUE,
+        Duration.ZERO);
+
+    private final long budgetBytes;
+    private final int permits;
+    private final Duration maxWait;
+    private final Semaphore available;
+    private final LongAdder rejections = new LongAdder();
+    private final Map<Class<? extends Query>, SizeStats> sizeStats = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new memory budget, accounted for with a granularity of one kibibyte.
+     *
+     * @param budgetBytes memory the results in flight may take, in bytes
+     * @param maxWait     how long a query waits for the budget to free up before being rejected
+     * @throws IllegalArgumentException if the budget is not positive or too large, or if the wait is negative
+     */
+    public MemoryBudget(final long budgetBytes, final Duration maxWait) {
+        if (budgetBytes <= 0 || budgetBytes > BYTES_PER_PERMIT * Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Memory budget must be between 1 and "
+                + BYTES_PER_PERMIT * Integer.MAX_VALUE + " bytes: " + budgetBytes);
+        }
+        if (maxWait == null || maxWait.isNegative()) {
+            throw new IllegalArgumentException("Maximum wait must not be negative: " + maxWait);
+        }
+
+        this.budgetBytes = budgetBytes;
+        this.permits = (int) toPermits(budgetBytes);
+        this.maxWait = maxWait;
+        this.available = new Semaphore(this.permits, true);
+    }
+
+    /**
+     * Retrieves a budget that accounts for nothing and never rejects a query.
+     *
+     * @return the unlimited memory budget
+     */
+    public static MemoryBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Handles the query, reserving the estimated size of its result for as long as the handler runs.
+     *
+     * @param queryHandler the query handler
+     * @param query        the query object
+     * @param <E>          the type of the error
+     * @param <R>          the type of the result
+     * @param <Q>          the type of the query
+     * @return either the result of the handler, or its budget exceeded error
+     * @throws IllegalStateException if the thread is interrupted while waiting for the budget
+     */
+    <E, R, Q extends Query> Either<E, R> execute(final QueryHandler<E, R, Q> queryHandler, final Q query) {
+        return this.execute(queryHandler, query, () -> {
+        });
+    }
+
+    /**
+     * Handles the query, reserving the estimated size of its result for as long as the handler runs, and tells when
+     * the query is admitted.
+     *
+     * @param queryHandler the query handler
+     * @param query        the query object
+     * @param admitted     run right before the handler starts, and not at all if the query is rejected
+     * @param <E>          the type of the error
+     * @param <R>          the type of the result
+     * @param <Q>          the type of the query
+     * @return either the result of the handler, or its budget exceeded error
+     * @throws IllegalStateException if the thread is interrupted while waiting for the budget
+     */
+    @SuppressWarnings("unchecked")
+    <E, R, Q extends Query> Either<E, R> execute(final QueryHandler<E, R, Q> queryHandler, final Q query,
+        final Runnable admitted) {
+        if (this == UNLIMITED || !(queryHandler instanceof ResultSizeAware<?, ?, ?> aware)) {
+            admitted.run();
+            return queryHandler.handle(query);
+        }
+
+        ResultSizeAware<E, R, Q> sizeAware = (ResultSizeAware<E, R, Q>) aware;
+        long estimate = sizeAware.estimateResultBytes(query);
+        if (estimate <= 0) {
+            admitted.run();
+            return queryHandler.handle(query);
+        }
+
+        int requested = estimate > this.budgetBytes ? 0 : (int) toPermits(estimate);
+        if (requested == 0 || !this.acquire(requested)) {
+            this.rejections.increment();
+            MemoryBudgetExceeded rejection = new MemoryBudgetExceeded(query.getClass(), estimate,
+                this.getAvailableBytes(), this.budgetBytes);
+            LOGGER.debug("Rejected query over memory budget: {}", rejection);
+            return Either.left(sizeAware.onBudgetExceeded(rejection));
+        }
+
+        try {
+            admitted.run();
+            Either<E, R> result = queryHandler.handle(query);
+            if (result != null && result.isRight()) {
+                long actual = sizeAware.measureResultBytes(result.get());
+                if (actual >= 0) {
+                    this.sizeStats.computeIfAbsent(query.getClass(), type -> new SizeStats()).record(estimate, actual);
+                }
+            }
+            return result;
+        } finally {
+            this.available.release(requested);
+        }
+    }
+
+    /**
+     * Retrieves the part of the budget currently reserved by queries in flight.
+     *
+     * @return the reserved memory, in bytes, rounded up to the accounting granularity
+     */
+    public long getInFlightBytes() {
+        return (this.permits - (long) this.available.availablePermits()) * BYTES_PER_PERMIT;
+    }
+
+    /**
+     * Retrieves the number of queries rejected so far.
+     *
+     * @return the number of rejections
+     */
+    public long getRejections() {
+        return this.rejections.sum();
+    }
+
+    /**
+     * Retrieves, per query type, the estimated versus actual sizes of the results measured so far.
+     *
+     * @return a report per query type whose handler measures its results
+     */
+    public List<ResultSizeReport> getReport() {
+        return this.sizeStats.entrySet().stream()
+            .map(entry -> entry.getValue().report(entry.getKey()))
+            .toList();
+    }
+
+    private long getAvailableBytes() {
+        return Math.min(this.budgetBytes, this.available.availablePermits() * BYTES_PER_PERMIT);
+    }
+
+    /**
+     * Reserves the given part of the budget, waiting for up to the maximum wait.
+     * <p>
+     * An interruption, such as the cancellation of a scatter-gather shard, is not a budget overrun: it is neither
+     * counted as a rejection nor reported to the handler.
+     *
+     * @param requested the number of permits to reserve
+     * @return true if the permits were reserved
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    private boolean acquire(final int requested) {
+        try {
+            return this.available.tryAcquire(requested, this.maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the memory budget", e);
+        }
+    }
+
+    private static long toPermits(final long bytes) {
+        return (bytes + BYTES_PER_PERMIT - 1) / BYTES_PER_PERMIT;
+    }
+
+    /**
+     * Running totals of the estimated and actual result sizes of a query type.
+     */
+    private static final class SizeStats {
+
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder estimatedBytes = new LongAdder();
+        private final LongAdder actualBytes = new LongAdder();
+        private final LongAccumulator maxActualBytes = new LongAccumulator(Math::max, 0);
+        private final LongAdder underestimates = new LongAdder();
+
+        void record(final long estimate, final long actual) {
+            this.samples.increment();
+            this.estimatedBytes.add(estimate);
+            this.actualBytes.add(actual);
+            this.maxActualBytes.accumulate(actual);
+            if (actual > estimate) {
+                this.underestimates.increment();
+            }
+        }
+
+        ResultSizeReport report(final Class<? extends Query> queryType) {
+            long count = Math.max(this.samples.sum(), 1);
+            return new ResultSizeReport(queryType, this.samples.sum(), this.estimatedBytes.sum() / count,
+                this.actualBytes.sum() / count, this.maxActualBytes.get(), this.underestimates.sum());
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.emedina.query.spring;
+
+import com.emedina.sharedkernel.query.Query;
+
+/**
+ * Why a query was rejected by the {@link MemoryBudget}, passed to {@link ResultSizeAware#onBudgetExceeded}.
+ *
+ * @param queryType      the class of the rejected query
+ * @param requestedBytes the estimated size of its result
+ * @param availableBytes the part of the budget that was free when it was rejected
+ * @param budgetBytes    the whole budget
+ * @author Enrique Medina Montenegro
+ */
+public record MemoryBudgetExceeded(Class<? extends Query> queryType, long requestedBytes, long availableBytes,
+    long budgetBytes) {
+}
@@ -0,0 +1,23 @@
+package com.emedina.query.spring;
+
+/**
+ * What a scatter-gather query returns when some of the handlers it fanned out to return a left.
+ *
+ * @author Enrique Medina Montenegro
+ * @see ScatterGather
+ */
+public enum PartialFailurePolicy {
+
+    /**
+     * Any left fails the whole query: the first left to complete is returned at once, without waiting for the other
+     * handlers; if handlers time out instead, the first of them in handler registration order is returned.
+     */
+    REQUIRE_ALL,
+
+    /**
+     * Lefts are dropped and the remaining rights are reduced; the first left is only returned if no handler returned
+     * a right.
+     */
+    ALLOW_PARTIAL
+
+}
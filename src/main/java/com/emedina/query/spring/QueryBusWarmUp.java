@@ -0,0 +1,126 @@
+package com.emedina.query.spring;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import com.emedina.sharedkernel.query.Query;
+import com.emedina.sharedkernel.query.core.QueryBus;
+
+import io.vavr.control.Either;
+
+/**
+ * Warms up the query bus while the application context is still starting, so that the first real queries do not pay
+ * for class loading, JIT compilation or lazily created handler beans.
+ * <p>
+ * Once every singleton has been instantiated, and therefore before the application reports itself as ready, it
+ * instantiates every handler known to the {@link Registry} and then runs each representative query through the given
+ * {@link QueryBus} a number of times. Representative queries should be cheap and free of side effects: they are
+ * executed by the real handlers.
+ * <p>
+ * The same warm-up is what a JDK AOT cache training run should exercise: starting the application with
+ * {@code -XX:AOTCacheOutput=app.aot -Dspring.context.exit=onRefresh} records the classes loaded and the profiles
+ * gathered here and exits right after the context is refreshed.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class QueryBusWarmUp implements SmartInitializingSingleton {
+
+    /**
+     * Default number of times each representative query is executed, enough for the dispatch path to be compiled.
+     */
+    public static final int DEFAULT_ITERATIONS = 2_000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryBusWarmUp.class);
+
+    private final Registry registry;
+    private final QueryBus queryBus;
+    private final List<? extends Query> representativeQueries;
+    private final int iterations;
+
+    /**
+     * Constructor-based dependency injection, using {@link #DEFAULT_ITERATIONS}.
+     *
+     * @param registry              the registry whose handlers are instantiated
+     * @param queryBus              the query bus the representative queries are sent through
+     * @param representativeQueries queries to execute during the warm-up
+     */
+    public QueryBusWarmUp(final Registry registry, final QueryBus queryBus,
+        final List<? extends Query> representativeQueries) {
+        this(registry, queryBus, representativeQueries, DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Constructor-based dependency injection.
+     *
+     * @param registry              the registry whose handlers are instantiated
+     * @param queryBus              the query bus the representative queries are sent through
+     * @param representativeQueries queries to execute during the warm-up
+     * @param iterations            number of times each representative query is executed
+     * @throws IllegalArgumentException if iterations is negative
+     */
+    public QueryBusWarmUp(final Registry registry, final QueryBus queryBus,
+        final List<? extends Query> representativeQueries, final int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Warm-up iterations must not be negative: " + iterations);
+        }
+
+        this.registry = registry;
+        this.queryBus = queryBus;
+        this.representativeQueries = List.copyOf(representativeQueries);
+        this.iterations = iterations;
+    }
+
+    /**
+     * Runs the warm-up once all singletons have been instantiated.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        this.warmUp();
+    }
+
+    /**
+     * Instantiates every registered handler and executes the representative queries.
+     * <p>
+     * A query that fails is logged and skipped for the remaining iterations; it does not prevent the application from
+     * starting, since the failure would otherwise only surface on the first real query.
+     */
+    public void warmUp() {
+        long start = System.nanoTime();
+        int handlers = this.registry.getAll().size();
+        long handlersReady = System.nanoTime();
+
+        long executions = 0;
+        for (Query query : this.representativeQueries) {
+            executions += this.execute(query);
+        }
+
+        LOGGER.info("Query bus warmed up: {} handlers instantiated in {} ms, {} queries executed in {} ms", handlers,
+            (handlersReady - start) / 1_000_000, executions, (System.nanoTime() - handlersReady) / 1_000_000);
+    }
+
+    /**
+     * Executes the given query as many times as configured, stopping at the first exception.
+     *
+     * @param query the representative query
+     * @return the number of times the query was executed
+     */
+    private int execute(final Query query) {
+        for (int i = 0; i < this.iterations; i++) {
+            try {
+                Either<?, ?> result = this.queryBus.query(query);
+                if (i == 0 && result.isLeft()) {
+                    LOGGER.debug("Warm-up query {} returned a left: {}", query, result.getLeft());
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Warm-up query {} failed, skipping it", query, e);
+                return i + 1;
+            }
+        }
+
+        return this.iterations;
+    }
+
+}
@@ -13,21 +13,24 @@ import com.emedina.sharedkernel.query.core.QueryHandler;
 class QueryProvider<H extends QueryHandler<?, ?, ?>> {
 
     private final ApplicationContext applicationContext;
+    private final String name;
     private final Class<H> type;
 
     /**
      * Constructor-based dependency injection.
      *
      * @param applicationContext Spring's application context
+     * @param name               of the query handler bean, so that several beans of the same type can be told apart
      * @param type               of the query handler
      */
-    QueryProvider(final ApplicationContext applicationContext, final Class<H> type) {
+    QueryProvider(final ApplicationContext applicationContext, final String name, final Class<H> type) {
         this.applicationContext = applicationContext;
+        this.name = name;
         this.type = type;
     }
 
     public H get() {
-        return this.applicationContext.getBean(this.type);
+        return this.applicationContext.getBean(this.name, this.type);
     }
 
 }
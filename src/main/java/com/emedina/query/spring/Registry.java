@@ -1,6 +1,8 @@
 package com.emedina.query.spring;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.context.ApplicationContext;
@@ -10,14 +12,17 @@ import com.emedina.sharedkernel.query.Query;
 import com.emedina.sharedkernel.query.core.QueryHandler;
 
 /**
- * A registry that holds the mapping between a query and its handler using Spring's {@link ApplicationContext}.
+ * A registry that holds the mapping between a query and its handlers using Spring's {@link ApplicationContext}.
+ * <p>
+ * Several handlers may be registered for the same query type, for example one per data shard; they are kept in bean
+ * registration order and identified by their bean names.
  *
  * @author Enrique Medina Montenegro
  * @see QueryHandler
  */
 public final class Registry {
 
-    private final Map<Class<? extends Query>, QueryProvider<?>> providerMap = new HashMap<>();
+    private final Map<Class<? extends Query>, Map<String, QueryProvider<?>>> providerMap = new HashMap<>();
 
     /**
      * Constructor-based dependency injection.
@@ -47,7 +52,8 @@ public final class Registry {
         }
 
         Class<? extends Query> queryType = (Class<? extends Query>) generics[2];
-        this.providerMap.put(queryType, new QueryProvider<>(applicationContext, handlerClass));
+        this.providerMap.computeIfAbsent(queryType, key -> new LinkedHashMap<>())
+            .put(name, new QueryProvider<>(applicationContext, name, handlerClass));
     }
 
     /**
@@ -59,15 +65,64 @@ public final class Registry {
      * @param <Q>        the type of the query
      * @return the query handler
      * @throws IllegalArgumentException if no handler is registered for the query class
+     * @throws IllegalStateException    if several handlers are registered for the query class
      */
     @SuppressWarnings("unchecked")
     <E, R, Q extends Query> QueryHandler<E, R, Q> get(final Class<Q> queryClass) {
-        QueryProvider<?> provider = this.providerMap.get(queryClass);
-        if (provider == null) {
+        Map<String, QueryProvider<?>> providers = this.providerMap.get(queryClass);
+        if (providers == null) {
             throw new IllegalArgumentException("No query handler registered for: " + queryClass.getName());
         }
+        if (providers.size() > 1) {
+            throw new IllegalStateException("Multiple query handlers registered for: " + queryClass.getName() + " "
+                + providers.keySet() + "; dispatch it with scatter-gather or route it through a replica pool");
+        }
+
+        return (QueryHandler<E, R, Q>) providers.values().iterator().next().get();
+    }
+
+    /**
+     * Retrieves the query handler registered under the given bean name for the given query class.
+     *
+     * @param queryClass the class of the query
+     * @param name       the bean name of the handler
+     * @param <E>        the type of the error
+     * @param <R>        the type of the result
+     * @param <Q>        the type of the query
+     * @return the query handler
+     * @throws IllegalArgumentException if no such handler is registered for the query class
+     */
+    @SuppressWarnings("unchecked")
+    <E, R, Q extends Query> QueryHandler<E, R, Q> get(final Class<Q> queryClass, final String name) {
+        QueryProvider<?> provider = this.providerMap.getOrDefault(queryClass, Map.of()).get(name);
+        if (provider == null) {
+            throw new IllegalArgumentException(
+                "No query handler named " + name + " registered for: " + queryClass.getName());
+        }
 
         return (QueryHandler<E, R, Q>) provider.get();
     }
 
+    /**
+     * Retrieves the bean names of the handlers registered for the given query class, in registration order.
+     *
+     * @param queryClass the class of the query
+     * @return the bean names, empty if no handler is registered for the query class
+     */
+    List<String> getHandlerNames(final Class<? extends Query> queryClass) {
+        return List.copyOf(this.providerMap.getOrDefault(queryClass, Map.of()).keySet());
+    }
+
+    /**
+     * Retrieves every registered query handler, forcing Spring to instantiate those that are created lazily.
+     *
+     * @return the query handlers
+     */
+    List<QueryHandler<?, ?, ?>> getAll() {
+        return this.providerMap.values().stream()
+            .flatMap(providers -> providers.values().stream())
+            .<QueryHandler<?, ?, ?>>map(QueryProvider::get)
+            .toList();
+    }
+
 }
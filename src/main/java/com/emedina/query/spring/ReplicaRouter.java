@@ -0,0 +1,333 @@
+package com.emedina.query.spring;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.emedina.sharedkernel.query.Query;
+
+import io.vavr.control.Either;
+
+/**
+ * Routes each query of a pooled type to one of several equivalent handlers, for example one per read replica.
+ * <p>
+ * Every handler registered for a pooled query type joins its replica pool. For each query, the router picks a handler
+ * according to its {@link RoutingStrategy}, using the queries in flight and the moving average of the latency it
+ * measures itself. Handlers whose error rate, counting exceptions and the lefts the {@link EjectionPolicy} classifies
+ * as errors, rises above that policy are left out of routing for a while and then admitted again. What the router
+ * knows about each handler is available through {@link #getStats(Class)}.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class ReplicaRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private static final ReplicaRouter NONE = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of());
+
+    private final RoutingStrategy strategy;
+    private final Set<Class<? extends Query>> pooledQueryTypes;
+    private final EjectionPolicy ejectionPolicy;
+    private final double errorWeight;
+    private final LongSupplier nanoClock;
+    private final Map<Class<? extends Query>, List<Replica>> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new router using the {@linkplain EjectionPolicy#defaults() default ejection policy}.
+     *
+     * @param strategy         how a handler is picked
+     * @param pooledQueryTypes query types whose handlers form a replica pool
+     */
+    public ReplicaRouter(final RoutingStrategy strategy, final Set<Class<? extends Query>> pooledQueryTypes) {
+        this(strategy, pooledQueryTypes, EjectionPolicy.defaults());
+    }
+
+    /**
+     * Creates a new router.
+     *
+     * @param strategy         how a handler is picked
+     * @param pooledQueryTypes query types whose handlers form a replica pool
+     * @param ejectionPolicy   when a failing handler is left out of routing
+     */
+    public ReplicaRouter(final RoutingStrategy strategy, final Set<Class<? extends Query>> pooledQueryTypes,
+        final EjectionPolicy ejectionPolicy) {
+        this(strategy, pooledQueryTypes, ejectionPolicy, System::nanoTime);
+    }
+
+    /**
+     * Creates a new router measuring time with the given clock.
+     *
+     * @param strategy         how a handler is picked
+     * @param pooledQueryTypes query types whose handlers form a replica pool
+     * @param ejectionPolicy   when a failing handler is left out of routing
+     * @param nanoClock        supplies the current time, in nanoseconds, like {@link System#nanoTime()}
+     */
+    ReplicaRouter(final RoutingStrategy strategy, final Set<Class<? extends Query>> pooledQueryTypes,
+        final EjectionPolicy ejectionPolicy, final LongSupplier nanoClock) {
+        this.strategy = strategy;
+        this.pooledQueryTypes = Set.copyOf(pooledQueryTypes);
+        this.ejectionPolicy = ejectionPolicy;
+        this.errorWeight = 2.0 / (ejectionPolicy.minRequests() + 1);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Retrieves a router without any replica pool.
+     *
+     * @return a router that routes no query type
+     */
+    public static ReplicaRouter none() {
+        return NONE;
+    }
+
+    /**
+     * Tells whether the handlers of the given query type form a replica pool.
+     *
+     * @param queryType the class of the query
+     * @return true if queries of this type are routed by this router
+     */
+    public boolean routes(final Class<? extends Query> queryType) {
+        return this.pooledQueryTypes.contains(queryType);
+    }
+
+    /**
+     * Picks a handler of the replica pool and handles the query with it, measuring how it went from the moment the
+     * query is admitted.
+     * <p>
+     * The call runs the admission callback right before the handler starts. Until then, for example while the query
+     * waits for the memory budget, it neither counts as in flight nor adds to the latency of the handler; a call that
+     * never runs the callback, such as a query rejected by the memory budget, is not measured at all.
+     *
+     * @param queryType the class of the query
+     * @param names     supplies the bean names of the handlers registered for the query type, the first time only
+     * @param call      handles the query with the handler of the given bean name, running the given admission
+     *                  callback right before the handler starts
+     * @param <E>       the type of the error
+     * @param <R>       the type of the result
+     * @return the result of the picked handler
+     * @throws IllegalArgumentException if no handler is registered for the query type
+     */
+    <E, R> Either<E, R> dispatchAdmitted(final Class<? extends Query> queryType, final Supplier<List<String>> names,
+        final BiFunction<String, Runnable, Either<E, R>> call) {
+        List<Replica> pool = this.pools.computeIfAbsent(queryType, type -> {
+            List<String> handlerNames = names.get();
+            if (handlerNames.isEmpty()) {
+                throw new IllegalArgumentException("No query handler registered for: " + type.getName());
+            }
+            return handlerNames.stream().map(Replica::new).toList();
+        });
+
+        Replica replica = this.select(pool);
+        replica.selections.increment();
+        Admission admission = new Admission(replica, this.nanoClock);
+        boolean failed = true;
+        try {
+            Either<E, R> result = call.apply(replica.name, admission);
+            failed = result != null && result.isLeft() && this.ejectionPolicy.countsAsError().test(result.getLeft());
+            return result;
+        } finally {
+            if (admission.admitted) {
+                replica.inFlight.decrementAndGet();
+                replica.record(this.nanoClock.getAsLong() - admission.start, failed, this.errorWeight);
+                if (replica.isFailing(this.ejectionPolicy)) {
+                    this.eject(queryType, pool, replica);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves what the router knows about each handler of the replica pool of the given query type.
+     *
+     * @param queryType the class of the query
+     * @return a snapshot per handler, in registration order, empty until the first query of that type is routed
+     */
+    public List<ReplicaStats> getStats(final Class<? extends Query> queryType) {
+        return this.pools.getOrDefault(queryType, List.of()).stream()
+            .map(Replica::stats)
+            .toList();
+    }
+
+    /**
+     * Picks a handler among those not ejected, or among all of them if every handler is ejected.
+     *
+     * @param pool the replica pool
+     * @return the picked handler
+     */
+    private Replica select(final List<Replica> pool) {
+        long now = this.nanoClock.getAsLong();
+        List<Replica> candidates = new ArrayList<>(pool.size());
+        for (Replica replica : pool) {
+            if (replica.isAvailable(now)) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates = pool;
+        }
+
+        int size = candidates.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+
+        if (this.strategy == RoutingStrategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            Replica a = candidates.get(first);
+            Replica b = candidates.get(second);
+            return a.load() <= b.load() ? a : b;
+        }
+
+        int offset = random.nextInt(size);
+        Replica best = candidates.get(offset);
+        for (int i = 1; i < size; i++) {
+            Replica replica = candidates.get((offset + i) % size);
+            if (replica.inFlight.get() < best.inFlight.get()) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Leaves a failing handler out of routing, unless it is the last one still routed to.
+     *
+     * @param queryType the class of the query
+     * @param pool      the replica pool
+     * @param replica   the failing handler
+     */
+    private void eject(final Class<? extends Query> queryType, final List<Replica> pool, final Replica replica) {
+        synchronized (pool) {
+            long now = this.nanoClock.getAsLong();
+            long available = pool.stream().filter(candidate -> candidate.isAvailable(now)).count();
+            if (available > 1 && replica.isFailing(this.ejectionPolicy)) {
+                replica.eject(now + this.ejectionPolicy.ejectionTime().toNanos());
+                LOGGER.warn("Ejected query handler {} of {} for {}: error rate {}", replica.name,
+                    queryType.getName(), this.ejectionPolicy.ejectionTime(), replica.errorRate);
+            }
+        }
+    }
+
+    /**
+     * Marks the moment a routed query is admitted, from which the picked handler is measured.
+     */
+    private static final class Admission implements Runnable {
+
+        private final Replica replica;
+        private final LongSupplier nanoClock;
+
+        private boolean admitted;
+        private long start;
+
+        Admission(final Replica replica, final LongSupplier nanoClock) {
+            this.replica = replica;
+            this.nanoClock = nanoClock;
+        }
+
+        @Override
+        public void run() {
+            if (!this.admitted) {
+                this.admitted = true;
+                this.replica.inFlight.incrementAndGet();
+                this.start = this.nanoClock.getAsLong();
+            }
+        }
+
+    }
+
+    /**
+     * What the router knows about one handler of a replica pool.
+     */
+    private static final class Replica {
+
+        private final String name;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder selections = new LongAdder();
+
+        private volatile double latencyNanos;
+        private volatile double errorRate;
+        private volatile boolean ejected;
+        private volatile long readmitAt;
+        private long requests;
+        private long ejections;
+
+        Replica(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Weighs the queries in flight by the average latency; unmeasured handlers look cheap so that they get probed.
+         */
+        double load() {
+            return (this.inFlight.get() + 1) * Math.max(this.latencyNanos, 1.0);
+        }
+
+        synchronized void record(final long latency, final boolean failed, final double errorWeight) {
+            this.latencyNanos = this.latencyNanos == 0 ? latency
+                : this.latencyNanos + LATENCY_WEIGHT * (latency - this.latencyNanos);
+            this.errorRate += errorWeight * ((failed ? 1.0 : 0.0) - this.errorRate);
+            this.requests++;
+        }
+
+        synchronized boolean isFailing(final EjectionPolicy ejectionPolicy) {
+            return !this.ejected && this.requests >= ejectionPolicy.minRequests()
+                && this.errorRate > ejectionPolicy.maxErrorRate();
+        }
+
+        /**
+         * Tells whether the handler may be routed to, admitting it again once its ejection time is over.
+         */
+        boolean isAvailable(final long now) {
+            if (!this.ejected) {
+                return true;
+            }
+            if (now - this.readmitAt < 0) {
+                return false;
+            }
+
+            this.readmit();
+            return true;
+        }
+
+        synchronized void eject(final long readmitAt) {
+            this.readmitAt = readmitAt;
+            this.ejected = true;
+            this.ejections++;
+        }
+
+        private synchronized void readmit() {
+            if (this.ejected) {
+                this.ejected = false;
+                this.errorRate = 0;
+                this.requests = 0;
+                LOGGER.info("Admitted query handler {} again", this.name);
+            }
+        }
+
+        synchronized ReplicaStats stats() {
+            return new ReplicaStats(this.name, this.inFlight.get(), Duration.ofNanos(Math.round(this.latencyNanos)),
+                this.errorRate, this.ejected, this.selections.sum(), this.ejections);
+        }
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.emedina.query.spring;
+
+import java.time.Duration;
+
+/**
+ * Snapshot of what a {@link ReplicaRouter} knows about one handler of a replica pool, for exporting as metrics.
+ *
+ * @param name           bean name of the handler
+ * @param inFlight       queries currently being handled
+ * @param averageLatency moving average of the time spent handling a query
+ * @param errorRate      moving average of the error rate, between 0 and 1
+ * @param ejected        whether the handler is currently left out of routing
+ * @param selections     number of queries routed to the handler so far
+ * @param ejections      number of times the handler was ejected so far
+ * @author Enrique Medina Montenegro
+ */
+public record ReplicaStats(String name, int inFlight, Duration averageLatency, double errorRate, boolean ejected,
+    long selections, long ejections) {
+}
@@ -0,0 +1,44 @@
+package com.emedina.query.spring;
+
+import com.emedina.sharedkernel.query.Query;
+import com.emedina.sharedkernel.query.core.QueryHandler;
+
+/**
+ * Implemented by query handlers, next to {@link QueryHandler}, that can estimate how much memory the result of a
+ * query will take before handling it, so that the bus can keep the results in flight within a {@link MemoryBudget}.
+ *
+ * @param <E> the type of the error
+ * @param <R> the type of the result
+ * @param <Q> the type of the query
+ * @author Enrique Medina Montenegro
+ */
+public interface ResultSizeAware<E, R, Q extends Query> {
+
+    /**
+     * Estimates the memory the result of the query will take while it is built.
+     *
+     * @param query the query about to be handled
+     * @return the estimated size in bytes, or zero if the query is cheap enough not to be accounted for
+     */
+    long estimateResultBytes(Q query);
+
+    /**
+     * Creates the left returned, instead of handling the query, when the memory budget cannot accommodate it.
+     *
+     * @param rejection why the query was rejected
+     * @return the error
+     */
+    E onBudgetExceeded(MemoryBudgetExceeded rejection);
+
+    /**
+     * Measures the memory the result actually takes, to compare it with the estimate in
+     * {@link MemoryBudget#getReport()}.
+     *
+     * @param result the result of the query
+     * @return the actual size in bytes, or a negative value if unknown
+     */
+    default long measureResultBytes(final R result) {
+        return -1;
+    }
+
+}
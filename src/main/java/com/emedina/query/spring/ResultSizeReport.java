@@ -0,0 +1,18 @@
+package com.emedina.query.spring;
+
+import com.emedina.sharedkernel.query.Query;
+
+/**
+ * Estimated versus actual result sizes of a query type, for tuning {@link ResultSizeAware#estimateResultBytes}.
+ *
+ * @param queryType          the class of the query
+ * @param samples            number of results whose actual size was measured
+ * @param meanEstimatedBytes mean estimated size of those results
+ * @param meanActualBytes    mean actual size of those results
+ * @param maxActualBytes     largest actual size seen
+ * @param underestimates     number of results larger than their estimate
+ * @author Enrique Medina Montenegro
+ */
+public record ResultSizeReport(Class<? extends Query> queryType, long samples, long meanEstimatedBytes,
+    long meanActualBytes, long maxActualBytes, long underestimates) {
+}
@@ -0,0 +1,22 @@
+package com.emedina.query.spring;
+
+/**
+ * How a {@link ReplicaRouter} picks one of the equivalent handlers of a replica pool.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public enum RoutingStrategy {
+
+    /**
+     * Picks the handler with the fewest queries in flight, breaking ties at random so that idle handlers keep being
+     * probed.
+     */
+    LEAST_OUTSTANDING,
+
+    /**
+     * Picks two handlers at random and keeps the one with the lowest load, weighting queries in flight by average
+     * latency; cheaper than scanning the whole pool and less prone to herding on a single handler.
+     */
+    POWER_OF_TWO_CHOICES
+
+}
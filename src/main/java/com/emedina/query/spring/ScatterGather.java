@@ -0,0 +1,137 @@
+package com.emedina.query.spring;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import io.vavr.control.Either;
+
+/**
+ * Describes how a query is fanned out to several handlers registered for its type, and how their results are merged
+ * back into one.
+ * <p>
+ * Instances are immutable; start from {@link #reducing(BinaryOperator)} and refine with the {@code with*} methods.
+ *
+ * @param reducer      merges the rights of two handlers, applied in handler registration order
+ * @param selector     selects, by bean name, the handlers the query is sent to
+ * @param policy       what to return when some handlers return a left
+ * @param shardTimeout how long to wait for each handler, or null to wait indefinitely
+ * @param timeoutError creates the left returned for a handler, given its bean name, when it times out
+ * @param executor     runs the handlers in parallel
+ * @param <E>          the type of the error
+ * @param <R>          the type of the result
+ * @author Enrique Medina Montenegro
+ * @see SpringQueryBus#scatter(com.emedina.sharedkernel.query.Query, ScatterGather)
+ */
+public record ScatterGather<E, R>(BinaryOperator<R> reducer, Predicate<String> selector, PartialFailurePolicy policy,
+    Duration shardTimeout, Function<String, E> timeoutError, Executor executor) {
+
+    private static final Executor VIRTUAL_THREAD_PER_TASK = task -> Thread.ofVirtual().start(task);
+
+    /**
+     * Validates the description.
+     *
+     * @throws IllegalArgumentException if the shard timeout is not positive, or if it is set without a timeout error
+     */
+    public ScatterGather {
+        Objects.requireNonNull(reducer, "reducer");
+        Objects.requireNonNull(selector, "selector");
+        Objects.requireNonNull(policy, "policy");
+        Objects.requireNonNull(executor, "executor");
+        if (shardTimeout != null && (shardTimeout.isNegative() || shardTimeout.isZero())) {
+            throw new IllegalArgumentException("Shard timeout must be positive: " + shardTimeout);
+        }
+        if (shardTimeout != null && timeoutError == null) {
+            throw new IllegalArgumentException("A shard timeout requires a timeout error");
+        }
+    }
+
+    /**
+     * Fans the query out to every handler, each on its own virtual thread, without timeout, and requires all of them
+     * to return a right.
+     *
+     * @param reducer merges the rights of two handlers
+     * @param <E>     the type of the error
+     * @param <R>     the type of the result
+     * @return a new scatter-gather description
+     */
+    public static <E, R> ScatterGather<E, R> reducing(final BinaryOperator<R> reducer) {
+        return new ScatterGather<>(reducer, name -> true, PartialFailurePolicy.REQUIRE_ALL, null, null,
+            VIRTUAL_THREAD_PER_TASK);
+    }
+
+    /**
+     * Restricts the fan-out to the handlers whose bean name matches the given selector.
+     *
+     * @param selector selects handlers by bean name
+     * @return a copy of this description with the given selector
+     */
+    public ScatterGather<E, R> withSelector(final Predicate<String> selector) {
+        return new ScatterGather<>(this.reducer, selector, this.policy, this.shardTimeout, this.timeoutError,
+            this.executor);
+    }
+
+    /**
+     * Sets what to return when some handlers return a left.
+     *
+     * @param policy the partial failure policy
+     * @return a copy of this description with the given policy
+     */
+    public ScatterGather<E, R> withPolicy(final PartialFailurePolicy policy) {
+        return new ScatterGather<>(this.reducer, this.selector, policy, this.shardTimeout, this.timeoutError,
+            this.executor);
+    }
+
+    /**
+     * Bounds how long each handler may take; a handler that times out is interrupted and counts as a left.
+     *
+     * @param shardTimeout how long to wait for each handler, measured from the fan-out
+     * @param timeoutError creates the left for a handler, given its bean name, when it times out
+     * @return a copy of this description with the given timeout
+     */
+    public ScatterGather<E, R> withShardTimeout(final Duration shardTimeout, final Function<String, E> timeoutError) {
+        return new ScatterGather<>(this.reducer, this.selector, this.policy, shardTimeout, timeoutError,
+            this.executor);
+    }
+
+    /**
+     * Runs the handlers on the given executor instead of a virtual thread per handler.
+     *
+     * @param executor runs the handlers
+     * @return a copy of this description with the given executor
+     */
+    public ScatterGather<E, R> withExecutor(final Executor executor) {
+        return new ScatterGather<>(this.reducer, this.selector, this.policy, this.shardTimeout, this.timeoutError,
+            executor);
+    }
+
+    /**
+     * Merges the results of the handlers according to the partial failure policy.
+     *
+     * @param results the result of each handler, in handler registration order
+     * @return the merged result
+     */
+    Either<E, R> gather(final List<Either<E, R>> results) {
+        Either<E, R> firstLeft = null;
+        R reduced = null;
+        boolean anyRight = false;
+        for (Either<E, R> result : results) {
+            if (result.isLeft()) {
+                if (this.policy == PartialFailurePolicy.REQUIRE_ALL) {
+                    return result;
+                }
+                firstLeft = firstLeft == null ? result : firstLeft;
+            } else {
+                reduced = anyRight ? this.reducer.apply(reduced, result.get()) : result.get();
+                anyRight = true;
+            }
+        }
+
+        return anyRight ? Either.right(reduced) : firstLeft;
+    }
+
+}
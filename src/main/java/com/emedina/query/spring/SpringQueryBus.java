@@ -1,7 +1,18 @@
 package com.emedina.query.spring;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.context.annotation.Bean;
 
+import com.emedina.query.spring.tracing.QueryTracer;
+import com.emedina.query.spring.tracing.TraceContext;
 import com.emedina.sharedkernel.query.Query;
 import com.emedina.sharedkernel.query.core.QueryBus;
 import com.emedina.sharedkernel.query.core.QueryHandler;
@@ -16,18 +27,63 @@ import io.vavr.control.Either;
 public class SpringQueryBus implements QueryBus {
 
     private final Registry registry;
+    private final QueryTracer tracer;
+    private final ReplicaRouter router;
+    private final MemoryBudget memoryBudget;
 
     /**
      * Creates a new instance with the given registry using constructor-based dependency injection.
+     * <p>
+     * The instance neither traces, routes nor budgets queries; refine it with the {@code with*} methods.
      *
      * @param registry a wrapper around Spring's application context
      */
     public SpringQueryBus(final Registry registry) {
+        this(registry, QueryTracer.noop(), ReplicaRouter.none(), MemoryBudget.unlimited());
+    }
+
+    private SpringQueryBus(final Registry registry, final QueryTracer tracer, final ReplicaRouter router,
+        final MemoryBudget memoryBudget) {
         this.registry = registry;
+        this.tracer = tracer;
+        this.router = router;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Wraps the dispatch of each query in a span.
+     *
+     * @param tracer creates a span around the dispatch of each query
+     * @return a copy of this query bus with the given tracer
+     */
+    public SpringQueryBus withTracer(final QueryTracer tracer) {
+        return new SpringQueryBus(this.registry, tracer, this.router, this.memoryBudget);
+    }
+
+    /**
+     * Routes the query types that form a replica pool to one of their handlers.
+     *
+     * @param router picks one of the handlers of the query types that form a replica pool
+     * @return a copy of this query bus with the given router
+     */
+    public SpringQueryBus withRouter(final ReplicaRouter router) {
+        return new SpringQueryBus(this.registry, this.tracer, router, this.memoryBudget);
+    }
+
+    /**
+     * Keeps the results of the queries in flight within the given memory budget.
+     *
+     * @param memoryBudget bounds the memory taken by the results of the queries in flight
+     * @return a copy of this query bus with the given memory budget
+     */
+    public SpringQueryBus withMemoryBudget(final MemoryBudget memoryBudget) {
+        return new SpringQueryBus(this.registry, this.tracer, this.router, memoryBudget);
     }
 
     /**
-     * Delegates the handling of the query to the corresponding {@link Bean} from Spring.
+     * Delegates the handling of the query to the corresponding {@link Bean} from Spring, within a span named after the
+     * query class. Query types that form a replica pool are handled by the {@link Bean} the router picks, and handlers
+     * that estimate the size of their results are kept within the memory budget.
      *
      * @param query the query object
      * @param <E>   the type of the error
@@ -39,8 +95,156 @@ public class SpringQueryBus implements QueryBus {
     @SuppressWarnings("unchecked")
     public <E, R, Q extends Query> Either<E, R> query(final Q query) {
         Class<Q> queryClass = (Class<Q>) query.getClass();
-        QueryHandler<E, R, Q> queryHandler = this.registry.get(queryClass);
-        return queryHandler.handle(query);
+        return this.tracer.trace(queryClass.getSimpleName(), () -> {
+            if (this.router.routes(queryClass)) {
+                return this.router.<E, R>dispatchAdmitted(queryClass, () -> this.registry.getHandlerNames(queryClass),
+                    (name, admitted) -> {
+                        QueryHandler<E, R, Q> queryHandler = this.registry.get(queryClass, name);
+                        return this.memoryBudget.execute(queryHandler, query, admitted);
+                    });
+            }
+
+            QueryHandler<E, R, Q> queryHandler = this.registry.get(queryClass);
+            return this.memoryBudget.execute(queryHandler, query);
+        });
+    }
+
+    /**
+     * Fans the query out, in parallel, to the handlers registered for its type, and merges their results.
+     * <p>
+     * The whole fan-out is traced as one span, with a child span per handler named after its bean. Results are
+     * collected as handlers complete, so a left stops the wait at once when every handler must succeed, and each
+     * handler is waited for up to the shard timeout, measured from the fan-out, so a slow handler does not add to the
+     * latency of the others. Handlers still running once the result is known are cancelled. A handler that throws fails
+     * the whole query with its exception.
+     *
+     * @param query         the query object
+     * @param scatterGather how to fan out the query and merge the results
+     * @param <E>           the type of the error
+     * @param <R>           the type of the result
+     * @param <Q>           the type of the query
+     * @return either the reduced rights, or a left according to the partial failure policy
+     * @throws IllegalArgumentException if no registered handler is selected
+     */
+    @SuppressWarnings("unchecked")
+    public <E, R, Q extends Query> Either<E, R> scatter(final Q query, final ScatterGather<E, R> scatterGather) {
+        Class<Q> queryClass = (Class<Q>) query.getClass();
+        return this.tracer.trace(queryClass.getSimpleName(), () -> {
+            List<String> names = this.registry.getHandlerNames(queryClass).stream()
+                .filter(scatterGather.selector())
+                .toList();
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("No query handler selected for: " + queryClass.getName());
+            }
+
+            BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+            List<FutureTask<Either<E, R>>> shards = new ArrayList<>(names.size());
+            try {
+                for (String name : names) {
+                    QueryHandler<E, R, Q> queryHandler = this.registry.get(queryClass, name);
+                    int index = shards.size();
+                    FutureTask<Either<E, R>> shard = new FutureTask<>(() -> this.tracer.trace(
+                        queryClass.getSimpleName() + "[" + name + "]",
+                        () -> this.memoryBudget.execute(queryHandler, query))) {
+                        @Override
+                        protected void done() {
+                            completed.add(index);
+                        }
+                    };
+                    shards.add(shard);
+                    scatterGather.executor().execute(TraceContext.wrap(shard));
+                }
+
+                return this.gather(names, shards, completed, scatterGather);
+            } finally {
+                shards.forEach(shard -> shard.cancel(true));
+            }
+        });
+    }
+
+    /**
+     * Waits for the handlers of a scatter-gather query in the order they complete, and merges their results.
+     *
+     * @param names         the bean names of the handlers
+     * @param shards        the running handlers, in the same order
+     * @param completed     the indexes of the handlers, as they complete
+     * @param scatterGather how to fan out the query and merge the results
+     * @param <E>           the type of the error
+     * @param <R>           the type of the result
+     * @return the first left to complete if every handler must succeed, or else the merged results, where the handlers
+     *         that timed out count as lefts
+     */
+    private <E, R> Either<E, R> gather(final List<String> names, final List<FutureTask<Either<E, R>>> shards,
+        final BlockingQueue<Integer> completed, final ScatterGather<E, R> scatterGather) {
+        long deadline = scatterGather.shardTimeout() == null ? 0
+            : System.nanoTime() + scatterGather.shardTimeout().toNanos();
+        List<Either<E, R>> results = new ArrayList<>(Collections.nCopies(shards.size(), null));
+        for (int pending = shards.size(); pending > 0; pending--) {
+            Integer index = this.next(completed, deadline, scatterGather);
+            if (index == null) {
+                break;
+            }
+
+            Either<E, R> result = this.resultOf(names.get(index), shards.get(index));
+            if (result.isLeft() && scatterGather.policy() == PartialFailurePolicy.REQUIRE_ALL) {
+                return result;
+            }
+            results.set(index, result);
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, Either.left(scatterGather.timeoutError().apply(names.get(i))));
+            }
+        }
+        return scatterGather.gather(results);
+    }
+
+    /**
+     * Waits for the next handler of a scatter-gather query to complete.
+     *
+     * @param completed     the indexes of the handlers, as they complete
+     * @param deadline      the {@link System#nanoTime()} by which the handlers must be done, if there is a timeout
+     * @param scatterGather how to fan out the query and merge the results
+     * @return the index of the handler, or null if the shard timeout is over
+     */
+    private Integer next(final BlockingQueue<Integer> completed, final long deadline,
+        final ScatterGather<?, ?> scatterGather) {
+        try {
+            if (scatterGather.shardTimeout() == null) {
+                return completed.take();
+            }
+            return completed.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for query handlers", e);
+        }
+    }
+
+    /**
+     * Retrieves the result of a completed handler of a scatter-gather query.
+     *
+     * @param name  the bean name of the handler
+     * @param shard the completed handler
+     * @param <E>   the type of the error
+     * @param <R>   the type of the result
+     * @return the result of the handler
+     */
+    private <E, R> Either<E, R> resultOf(final String name, final FutureTask<Either<E, R>> shard) {
+        try {
+            return shard.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Query handler " + name + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for query handler " + name, e);
+        }
     }
 
 }
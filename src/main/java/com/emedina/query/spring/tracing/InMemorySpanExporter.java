@@ -0,0 +1,37 @@
+package com.emedina.query.spring.tracing;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps finished spans in memory, in the order they finished; meant for tests.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final Queue<QuerySpan> spans = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void export(final QuerySpan span) {
+        this.spans.add(span);
+    }
+
+    /**
+     * Retrieves a snapshot of the spans exported so far.
+     *
+     * @return the exported spans, in the order they finished
+     */
+    public List<QuerySpan> getSpans() {
+        return List.copyOf(this.spans);
+    }
+
+    /**
+     * Discards every span exported so far.
+     */
+    public void reset() {
+        this.spans.clear();
+    }
+
+}
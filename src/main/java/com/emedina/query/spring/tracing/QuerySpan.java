@@ -0,0 +1,54 @@
+package com.emedina.query.spring.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A finished span covering the dispatch of a single query, handed to a {@link SpanExporter}.
+ *
+ * @param traceId      identifier shared by every span of the same trace
+ * @param spanId       identifier of this span
+ * @param parentSpanId identifier of the enclosing span, or {@code 0} for a root span
+ * @param name         name of the span: the simple name of the query class, followed by the bean name of the handler
+ *                     in brackets, such as {@code FindOrdersQuery[euOrdersHandler]}, for each handler of a
+ *                     scatter-gather query
+ * @param start        wall-clock time at which the dispatch started
+ * @param duration     time spent dispatching the query
+ * @param outcome      how the dispatch ended
+ * @author Enrique Medina Montenegro
+ */
+public record QuerySpan(long traceId, long spanId, long parentSpanId, String name, Instant start, Duration duration,
+    Outcome outcome) {
+
+    /**
+     * How the dispatch of a query ended.
+     */
+    public enum Outcome {
+
+        /**
+         * The handler returned a right.
+         */
+        RIGHT,
+
+        /**
+         * The handler returned a left.
+         */
+        LEFT,
+
+        /**
+         * The dispatch threw an exception.
+         */
+        ERROR
+
+    }
+
+    /**
+     * Tells whether this span has no enclosing span.
+     *
+     * @return true if this span starts its trace
+     */
+    public boolean isRoot() {
+        return this.parentSpanId == 0;
+    }
+
+}
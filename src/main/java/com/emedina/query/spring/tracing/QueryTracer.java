@@ -0,0 +1,108 @@
+package com.emedina.query.spring.tracing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.vavr.control.Either;
+
+/**
+ * Creates a span around the dispatch of each query, linking nested queries to the query that issued them.
+ * <p>
+ * Root queries consult the {@link Sampler}; nested queries inherit its decision. Unsampled traces cost a single
+ * {@link ScopedValue} binding per root query and nothing per nested query, and {@link #noop()} skips tracing
+ * altogether. Finished spans go to the {@link SpanExporter}, which plugs in the tracing backend.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class QueryTracer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryTracer.class);
+
+    private static final QueryTracer NOOP = new QueryTracer(Sampler.never(), span -> {
+    }, false);
+
+    private final Sampler sampler;
+    private final SpanExporter exporter;
+    private final boolean enabled;
+
+    /**
+     * Creates a new tracer.
+     *
+     * @param sampler  decides which traces are recorded
+     * @param exporter receives the finished spans
+     */
+    public QueryTracer(final Sampler sampler, final SpanExporter exporter) {
+        this(sampler, exporter, true);
+    }
+
+    private QueryTracer(final Sampler sampler, final SpanExporter exporter, final boolean enabled) {
+        this.sampler = sampler;
+        this.exporter = exporter;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Retrieves a tracer that records nothing and does not propagate any context.
+     *
+     * @return the no-op tracer
+     */
+    public static QueryTracer noop() {
+        return NOOP;
+    }
+
+    /**
+     * Runs the dispatch of a query within a new span, child of the span in progress if any.
+     *
+     * @param name     name of the span
+     * @param dispatch looks up the handler and handles the query
+     * @param <E>      the type of the error
+     * @param <R>      the type of the result
+     * @return the result of the dispatch
+     */
+    public <E, R> Either<E, R> trace(final String name, final Supplier<Either<E, R>> dispatch) {
+        if (!this.enabled) {
+            return dispatch.get();
+        }
+
+        SpanContext parent = TraceContext.current();
+        if (parent != null && !parent.sampled()) {
+            return dispatch.get();
+        }
+        if (parent == null && !this.sampler.sample()) {
+            return TraceContext.callWithin(SpanContext.NOT_SAMPLED, dispatch);
+        }
+
+        SpanContext span = parent == null ? SpanContext.root() : parent.child();
+        Instant start = Instant.now();
+        long startNanos = System.nanoTime();
+        QuerySpan.Outcome outcome = QuerySpan.Outcome.ERROR;
+        try {
+            Either<E, R> result = TraceContext.callWithin(span, dispatch);
+            if (result != null) {
+                outcome = result.isRight() ? QuerySpan.Outcome.RIGHT : QuerySpan.Outcome.LEFT;
+            }
+            return result;
+        } finally {
+            this.export(new QuerySpan(span.traceId(), span.spanId(), parent == null ? 0 : parent.spanId(), name, start,
+                Duration.ofNanos(System.nanoTime() - startNanos), outcome));
+        }
+    }
+
+    /**
+     * Hands the span to the exporter, never letting a faulty exporter fail the query.
+     *
+     * @param span the finished span
+     */
+    private void export(final QuerySpan span) {
+        try {
+            this.exporter.export(span);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not export span {}", span, e);
+        }
+    }
+
+}
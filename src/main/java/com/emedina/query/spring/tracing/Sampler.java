@@ -0,0 +1,56 @@
+package com.emedina.query.spring.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a new trace is recorded.
+ * <p>
+ * The decision is only taken for root queries; nested queries follow the decision of the query that issued them, so
+ * traces are either complete or absent.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@FunctionalInterface
+public interface Sampler {
+
+    /**
+     * Decides whether the trace started by a root query is recorded.
+     *
+     * @return true to record the trace
+     */
+    boolean sample();
+
+    /**
+     * Records every trace.
+     *
+     * @return a sampler that always samples
+     */
+    static Sampler always() {
+        return () -> true;
+    }
+
+    /**
+     * Records no trace.
+     *
+     * @return a sampler that never samples
+     */
+    static Sampler never() {
+        return () -> false;
+    }
+
+    /**
+     * Records a random fraction of the traces.
+     *
+     * @param ratio fraction of the traces to record, between 0 and 1
+     * @return a probabilistic sampler
+     * @throws IllegalArgumentException if the ratio is not between 0 and 1
+     */
+    static Sampler ratio(final double ratio) {
+        if (!(ratio >= 0.0 && ratio <= 1.0)) {
+            throw new IllegalArgumentException("Sampling ratio must be between 0 and 1: " + ratio);
+        }
+
+        return () -> ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+}
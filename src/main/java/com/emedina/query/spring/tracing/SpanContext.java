@@ -0,0 +1,46 @@
+package com.emedina.query.spring.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identity of the span currently in progress, as seen by the queries nested inside it.
+ *
+ * @param traceId identifier shared by every span of the trace
+ * @param spanId  identifier of the span
+ * @param sampled whether the trace is being recorded
+ * @author Enrique Medina Montenegro
+ */
+record SpanContext(long traceId, long spanId, boolean sampled) {
+
+    /**
+     * Marks a trace that is not recorded, so that its nested queries do not start traces of their own.
+     */
+    static final SpanContext NOT_SAMPLED = new SpanContext(0, 0, false);
+
+    /**
+     * Creates the context of a recorded root span, starting a new trace.
+     *
+     * @return a new sampled root context
+     */
+    static SpanContext root() {
+        return new SpanContext(nextId(), nextId(), true);
+    }
+
+    /**
+     * Creates the context of a span nested inside this one.
+     *
+     * @return a new context in the same trace
+     */
+    SpanContext child() {
+        return new SpanContext(this.traceId, nextId(), this.sampled);
+    }
+
+    private static long nextId() {
+        long id;
+        do {
+            id = ThreadLocalRandom.current().nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.emedina.query.spring.tracing;
+
+/**
+ * Receives finished spans and ships them to a tracing backend.
+ * <p>
+ * Implementations are called on the thread that dispatched the query, right after the handler returns, so they
+ * should hand the span off rather than perform blocking I/O.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    /**
+     * Exports a finished span.
+     *
+     * @param span the finished span
+     */
+    void export(QuerySpan span);
+
+}
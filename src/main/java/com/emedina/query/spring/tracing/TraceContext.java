@@ -0,0 +1,87 @@
+package com.emedina.query.spring.tracing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Holds the span in progress on the current thread and carries it across thread boundaries.
+ * <p>
+ * The span is bound with a {@link ScopedValue} for the duration of each dispatch, so it is visible to nested queries
+ * on the same thread and to subtasks forked in a {@code StructuredTaskScope}. Tasks handed to an {@link Executor}, be
+ * it backed by platform or virtual threads, do not inherit it: wrap them with {@link #wrap(Runnable)},
+ * {@link #wrap(Callable)} or {@link #propagating(Executor)} so that the queries they issue become children of the span
+ * that submitted them.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public final class TraceContext {
+
+    private static final ScopedValue<SpanContext> CURRENT = ScopedValue.newInstance();
+
+    private TraceContext() {
+    }
+
+    /**
+     * Wraps a task so that it runs within the span in progress at the time of wrapping.
+     *
+     * @param task the task to wrap
+     * @return the wrapped task, or the task itself if no span is in progress
+     */
+    public static Runnable wrap(final Runnable task) {
+        SpanContext captured = current();
+        if (captured == null) {
+            return task;
+        }
+
+        return () -> ScopedValue.where(CURRENT, captured).run(task);
+    }
+
+    /**
+     * Wraps a task so that it runs within the span in progress at the time of wrapping.
+     *
+     * @param task the task to wrap
+     * @param <V>  the type of the result
+     * @return the wrapped task, or the task itself if no span is in progress
+     */
+    public static <V> Callable<V> wrap(final Callable<V> task) {
+        SpanContext captured = current();
+        if (captured == null) {
+            return task;
+        }
+
+        return () -> ScopedValue.where(CURRENT, captured).call(task::call);
+    }
+
+    /**
+     * Decorates an executor so that every task runs within the span in progress when it was submitted.
+     *
+     * @param executor the executor to decorate
+     * @return the decorated executor
+     */
+    public static Executor propagating(final Executor executor) {
+        return task -> executor.execute(wrap(task));
+    }
+
+    /**
+     * Retrieves the span in progress on the current thread.
+     *
+     * @return the span in progress, or null if there is none
+     */
+    static SpanContext current() {
+        return CURRENT.isBound() ? CURRENT.get() : null;
+    }
+
+    /**
+     * Runs the given work with the given span in progress.
+     *
+     * @param context the span in progress while the work runs
+     * @param work    the work to run
+     * @param <T>     the type of the result
+     * @return the result of the work
+     */
+    static <T> T callWithin(final SpanContext context, final Supplier<T> work) {
+        return ScopedValue.where(CURRENT, context).call(work::get);
+    }
+
+}
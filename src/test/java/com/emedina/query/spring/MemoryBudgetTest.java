@@ -0,0 +1,249 @@
+package com.emedina.query.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.emedina.query.spring.fixtures.SizedTestQueryHandler;
+import com.emedina.query.spring.fixtures.TestQuery;
+import com.emedina.query.spring.fixtures.TestQueryHandler;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for MemoryBudget.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("MemoryBudget")
+class MemoryBudgetTest {
+
+    private final TestQuery query = new TestQuery("test message");
+
+    @Test
+    @DisplayName("should not account for handlers that do not estimate their result size")
+    void shouldNotAccountForHandlersWithoutEstimate() {
+        // given
+        MemoryBudget budget = new MemoryBudget(1024, Duration.ZERO);
+        TestQueryHandler handler = new TestQueryHandler("result");
+
+        // when
+        Either<Throwable, String> result = budget.execute(handler, query);
+
+        // then
+        assertThat(result.get()).isEqualTo("result");
+        assertThat(budget.getReport()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should run a query that fits and give its reservation back")
+    void shouldRunQueryThatFitsAndReleaseReservation() {
+        // given
+        MemoryBudget budget = new MemoryBudget(10 * 1024, Duration.ZERO);
+        SizedTestQueryHandler handler = new SizedTestQueryHandler("0123456789", 4 * 1024);
+
+        // when
+        Either<Throwable, String> result = budget.execute(handler, query);
+
+        // then
+        assertThat(result.get()).isEqualTo("0123456789");
+        assertThat(budget.getInFlightBytes()).isZero();
+        assertThat(budget.getRejections()).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject a query whose estimate exceeds the whole budget without running it")
+    void shouldRejectQueryLargerThanBudget() {
+        // given
+        MemoryBudget budget = new MemoryBudget(1024, Duration.ofSeconds(10));
+        SizedTestQueryHandler handler = new SizedTestQueryHandler("result", 1025);
+
+        // when
+        Either<Throwable, String> result = budget.execute(handler, query);
+
+        // then
+        assertThat(result.getLeft()).isInstanceOf(IllegalStateException.class)
+            .hasMessage("Memory budget exceeded: 1025 bytes");
+        assertThat(handler.wasExecuted()).isFalse();
+        assertThat(budget.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should tell when a query is admitted and not when it is rejected")
+    void shouldTellWhenQueryIsAdmitted() {
+        // given
+        MemoryBudget budget = new MemoryBudget(1024, Duration.ZERO);
+        AtomicInteger admissions = new AtomicInteger();
+
+        // when
+        budget.execute(new SizedTestQueryHandler("result", 2048), query, admissions::incrementAndGet);
+        budget.execute(new SizedTestQueryHandler("result", 512), query, admissions::incrementAndGet);
+        budget.execute(new TestQueryHandler("result"), query, admissions::incrementAndGet);
+
+        // then
+        assertThat(admissions).hasValue(2);
+        assertThat(budget.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should reject a query once the budget is used up by queries in flight")
+    void shouldRejectQueryWhenBudgetIsUsedUp() throws Exception {
+        // given
+        MemoryBudget budget = new MemoryBudget(8 * 1024, Duration.ZERO);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Either<Throwable, String>> inFlight = CompletableFuture
+            .supplyAsync(() -> budget.execute(blocking(6 * 1024, started, release), query));
+        started.await();
+        SizedTestQueryHandler handler = new SizedTestQueryHandler("result", 4 * 1024);
+
+        // when
+        Either<Throwable, String> rejected = budget.execute(handler, query);
+        long inFlightBytes = budget.getInFlightBytes();
+        release.countDown();
+
+        // then
+        assertThat(rejected.isLeft()).isTrue();
+        assertThat(handler.wasExecuted()).isFalse();
+        assertThat(inFlightBytes).isEqualTo(6 * 1024);
+        assertThat(inFlight.get().get()).isEqualTo("blocking");
+        assertThat(budget.execute(handler, query).get()).isEqualTo("result");
+    }
+
+    @Test
+    @DisplayName("should not count an interruption while waiting for the budget as a rejection")
+    void shouldNotCountInterruptionAsRejection() {
+        // given
+        MemoryBudget budget = new MemoryBudget(8 * 1024, Duration.ofSeconds(10));
+        SizedTestQueryHandler handler = new SizedTestQueryHandler("result", 4 * 1024);
+        Thread.currentThread().interrupt();
+
+        // when & then
+        try {
+            assertThatThrownBy(() -> budget.execute(handler, query))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Interrupted while waiting for the memory budget");
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(handler.wasExecuted()).isFalse();
+        assertThat(budget.getRejections()).isZero();
+        assertThat(budget.getInFlightBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("should queue a query until the budget frees up")
+    void shouldQueueQueryUntilBudgetFreesUp() throws Exception {
+        // given
+        MemoryBudget budget = new MemoryBudget(8 * 1024, Duration.ofSeconds(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Either<Throwable, String>> inFlight = CompletableFuture
+            .supplyAsync(() -> budget.execute(blocking(6 * 1024, started, release), query));
+        started.await();
+
+        // when
+        CompletableFuture<Either<Throwable, String>> queued = CompletableFuture
+            .supplyAsync(() -> budget.execute(new SizedTestQueryHandler("queued", 4 * 1024), query));
+        Thread.sleep(50);
+        boolean waiting = !queued.isDone();
+        release.countDown();
+
+        // then
+        assertThat(waiting).isTrue();
+        assertThat(queued.get().get()).isEqualTo("queued");
+        assertThat(inFlight.get().get()).isEqualTo("blocking");
+        assertThat(budget.getRejections()).isZero();
+    }
+
+    @Test
+    @DisplayName("should give the reservation back when the handler throws")
+    void shouldReleaseReservationWhenHandlerThrows() {
+        // given
+        MemoryBudget budget = new MemoryBudget(1024, Duration.ZERO);
+        SizedTestQueryHandler throwing = new SizedTestQueryHandler("result", 1024) {
+            @Override
+            public Either<Throwable, String> handle(TestQuery query) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        // when & then
+        assertThatThrownBy(() -> budget.execute(throwing, query)).hasMessage("boom");
+        assertThat(budget.getInFlightBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("should report estimated versus actual result sizes per query type")
+    void shouldReportEstimatedVersusActualSizes() {
+        // given
+        MemoryBudget budget = new MemoryBudget(1024 * 1024, Duration.ZERO);
+
+        // when
+        budget.execute(new SizedTestQueryHandler("0123456789", 10), query);
+        budget.execute(new SizedTestQueryHandler("01234", 30), query);
+
+        // then
+        assertThat(budget.getReport()).singleElement().satisfies(report -> {
+            assertThat(report.queryType()).isEqualTo(TestQuery.class);
+            assertThat(report.samples()).isEqualTo(2);
+            assertThat(report.meanEstimatedBytes()).isEqualTo(20);
+            assertThat(report.meanActualBytes()).isEqualTo(15);
+            assertThat(report.maxActualBytes()).isEqualTo(20);
+            assertThat(report.underestimates()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    @DisplayName("should neither account for nor reject anything when unlimited")
+    void shouldNotAccountForAnythingWhenUnlimited() {
+        // given
+        MemoryBudget budget = MemoryBudget.unlimited();
+
+        // when
+        Either<Throwable, String> result = budget.execute(new SizedTestQueryHandler("result", Long.MAX_VALUE), query);
+
+        // then
+        assertThat(result.get()).isEqualTo("result");
+        assertThat(budget.getRejections()).isZero();
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when the budget or the wait is out of range")
+    void shouldThrowIllegalArgumentExceptionWhenOutOfRange() {
+        assertThatThrownBy(() -> new MemoryBudget(0, Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Memory budget must be between 1 and");
+        assertThatThrownBy(() -> new MemoryBudget(Long.MAX_VALUE, Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MemoryBudget(1024, Duration.ofMillis(-1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Maximum wait must not be negative: PT-0.001S");
+    }
+
+    private static SizedTestQueryHandler blocking(final long estimatedBytes, final CountDownLatch started,
+        final CountDownLatch release) {
+        return new SizedTestQueryHandler("blocking", estimatedBytes) {
+            @Override
+            public Either<Throwable, String> handle(TestQuery query) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return Either.left(e);
+                }
+                return super.handle(query);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.emedina.query.spring;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.emedina.query.spring.fixtures.AnotherTestQuery;
+import com.emedina.query.spring.fixtures.TestQuery;
+import com.emedina.query.spring.fixtures.TestQueryHandler;
+import com.emedina.sharedkernel.query.core.QueryBus;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for QueryBusWarmUp.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QueryBusWarmUp")
+class QueryBusWarmUpTest {
+
+    @Mock
+    private Registry registry;
+
+    @Mock
+    private QueryBus queryBus;
+
+    @Test
+    @DisplayName("should instantiate every handler and run each representative query the configured number of times")
+    void shouldInstantiateHandlersAndRunRepresentativeQueries() {
+        // given
+        TestQuery testQuery = new TestQuery("warm-up");
+        AnotherTestQuery anotherQuery = new AnotherTestQuery(1);
+        when(registry.getAll()).thenReturn(List.of(new TestQueryHandler()));
+        when(queryBus.query(any())).thenReturn(Either.right("ok"));
+        QueryBusWarmUp warmUp = new QueryBusWarmUp(registry, queryBus, List.of(testQuery, anotherQuery), 3);
+
+        // when
+        warmUp.warmUp();
+
+        // then
+        verify(registry).getAll();
+        verify(queryBus, times(3)).query(testQuery);
+        verify(queryBus, times(3)).query(anotherQuery);
+    }
+
+    @Test
+    @DisplayName("should warm up once all singletons are instantiated")
+    void shouldWarmUpAfterSingletonsInstantiated() {
+        // given
+        TestQuery query = new TestQuery("warm-up");
+        when(registry.getAll()).thenReturn(List.of());
+        when(queryBus.query(query)).thenReturn(Either.left("not found"));
+        QueryBusWarmUp warmUp = new QueryBusWarmUp(registry, queryBus, List.of(query));
+
+        // when
+        warmUp.afterSingletonsInstantiated();
+
+        // then
+        verify(queryBus, times(QueryBusWarmUp.DEFAULT_ITERATIONS)).query(query);
+    }
+
+    @Test
+    @DisplayName("should skip a failing query and keep warming up the others")
+    void shouldSkipFailingQueryAndContinue() {
+        // given
+        TestQuery failingQuery = new TestQuery("boom");
+        AnotherTestQuery anotherQuery = new AnotherTestQuery(1);
+        when(registry.getAll()).thenReturn(List.of());
+        when(queryBus.query(failingQuery)).thenThrow(new IllegalStateException("boom"));
+        when(queryBus.query(anotherQuery)).thenReturn(Either.right(1));
+        QueryBusWarmUp warmUp = new QueryBusWarmUp(registry, queryBus, List.of(failingQuery, anotherQuery), 5);
+
+        // when
+        warmUp.warmUp();
+
+        // then
+        verify(queryBus, times(1)).query(failingQuery);
+        verify(queryBus, times(5)).query(anotherQuery);
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when iterations is negative")
+    void shouldThrowIllegalArgumentExceptionWhenIterationsIsNegative() {
+        // when & then
+        assertThatThrownBy(() -> new QueryBusWarmUp(registry, queryBus, List.of(), -1))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Warm-up iterations must not be negative: -1");
+    }
+
+}
@@ -30,7 +30,7 @@ class QueryProviderTest {
 
     @BeforeEach
     void setUp() {
-        queryProvider = new QueryProvider<>(applicationContext, TestQueryHandler.class);
+        queryProvider = new QueryProvider<>(applicationContext, "testQueryHandler", TestQueryHandler.class);
     }
 
     @Test
@@ -38,28 +38,28 @@ class QueryProviderTest {
     void shouldGetBeanFromApplicationContext() {
         // given
         TestQueryHandler expectedHandler = new TestQueryHandler();
-        when(applicationContext.getBean(TestQueryHandler.class)).thenReturn(expectedHandler);
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class)).thenReturn(expectedHandler);
 
         // when
         TestQueryHandler actualHandler = queryProvider.get();
 
         // then
-        verify(applicationContext).getBean(TestQueryHandler.class);
+        verify(applicationContext).getBean("testQueryHandler", TestQueryHandler.class);
         assertThat(actualHandler).isSameAs(expectedHandler);
     }
 
     @Test
-    @DisplayName("should delegate to application context getBean method")
+    @DisplayName("should delegate to application context getBean method by bean name")
     void shouldDelegateToApplicationContextGetBeanMethod() {
         // given
         TestQueryHandler handler = new TestQueryHandler();
-        when(applicationContext.getBean(TestQueryHandler.class)).thenReturn(handler);
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class)).thenReturn(handler);
 
         // when
         queryProvider.get();
 
         // then
-        verify(applicationContext).getBean(TestQueryHandler.class);
+        verify(applicationContext).getBean("testQueryHandler", TestQueryHandler.class);
     }
 
     @Test
@@ -67,7 +67,7 @@ class QueryProviderTest {
     void shouldReturnSameInstanceAsApplicationContext() {
         // given
         TestQueryHandler handler = new TestQueryHandler();
-        when(applicationContext.getBean(TestQueryHandler.class)).thenReturn(handler);
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class)).thenReturn(handler);
 
         // when
         TestQueryHandler result1 = queryProvider.get();
@@ -83,7 +83,7 @@ class QueryProviderTest {
     @DisplayName("should handle null return from application context")
     void shouldHandleNullReturnFromApplicationContext() {
         // given
-        when(applicationContext.getBean(TestQueryHandler.class)).thenReturn(null);
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class)).thenReturn(null);
 
         // when
         TestQueryHandler result = queryProvider.get();
@@ -4,6 +4,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -44,9 +46,9 @@ class RegistryTest {
         when(applicationContext.getType("anotherTestQueryHandler"))
             .thenReturn((Class) AnotherTestQueryHandler.class);
 
-        when(applicationContext.getBean(TestQueryHandler.class))
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class))
             .thenReturn(new TestQueryHandler());
-        when(applicationContext.getBean(AnotherTestQueryHandler.class))
+        when(applicationContext.getBean("anotherTestQueryHandler", AnotherTestQueryHandler.class))
             .thenReturn(new AnotherTestQueryHandler());
     }
 
@@ -58,10 +60,21 @@ class RegistryTest {
         when(applicationContext.getType("testQueryHandler"))
             .thenReturn((Class) TestQueryHandler.class);
 
-        when(applicationContext.getBean(TestQueryHandler.class))
+        when(applicationContext.getBean("testQueryHandler", TestQueryHandler.class))
             .thenReturn(new TestQueryHandler());
     }
 
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void setupWithShards() {
+        when(applicationContext.getBeanNamesForType(QueryHandler.class))
+            .thenReturn(new String[] { "shardA", "shardB" });
+
+        when(applicationContext.getType("shardA"))
+            .thenReturn((Class) TestQueryHandler.class);
+        when(applicationContext.getType("shardB"))
+            .thenReturn((Class) TestQueryHandler.class);
+    }
+
     private void setupWithoutHandlers() {
         when(applicationContext.getBeanNamesForType(QueryHandler.class))
             .thenReturn(new String[] {});
@@ -126,6 +139,84 @@ class RegistryTest {
         assertThat(testHandler).isNotSameAs(anotherHandler);
     }
 
+    @Test
+    @DisplayName("should instantiate and return every registered handler")
+    void shouldReturnEveryRegisteredHandler() {
+        // given
+        setupWithHandlers();
+        registry = new Registry(applicationContext);
+
+        // when
+        List<QueryHandler<?, ?, ?>> handlers = registry.getAll();
+
+        // then
+        assertThat(handlers)
+            .hasSize(2)
+            .hasAtLeastOneElementOfType(TestQueryHandler.class)
+            .hasAtLeastOneElementOfType(AnotherTestQueryHandler.class);
+    }
+
+    @Test
+    @DisplayName("should return no handlers when application context is empty")
+    void shouldReturnNoHandlersWhenApplicationContextIsEmpty() {
+        // given
+        setupWithoutHandlers();
+        registry = new Registry(applicationContext);
+
+        // when & then
+        assertThat(registry.getAll()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should keep every handler registered for the same query type, in registration order")
+    void shouldKeepEveryHandlerRegisteredForSameQueryType() {
+        // given
+        setupWithShards();
+        TestQueryHandler shardA = new TestQueryHandler("a");
+        TestQueryHandler shardB = new TestQueryHandler("b");
+        when(applicationContext.getBean("shardA", TestQueryHandler.class)).thenReturn(shardA);
+        when(applicationContext.getBean("shardB", TestQueryHandler.class)).thenReturn(shardB);
+
+        // when
+        registry = new Registry(applicationContext);
+
+        // then
+        assertThat(registry.getHandlerNames(TestQuery.class)).containsExactly("shardA", "shardB");
+        assertThat(registry.<Throwable, String, TestQuery>get(TestQuery.class, "shardA")).isSameAs(shardA);
+        assertThat(registry.<Throwable, String, TestQuery>get(TestQuery.class, "shardB")).isSameAs(shardB);
+        assertThat(registry.getAll()).containsExactly(shardA, shardB);
+    }
+
+    @Test
+    @DisplayName("should throw IllegalStateException when several handlers are registered for a single-handler query")
+    void shouldThrowIllegalStateExceptionWhenSeveralHandlersAreRegistered() {
+        // given
+        setupWithShards();
+        registry = new Registry(applicationContext);
+
+        // when & then
+        assertThatThrownBy(() -> registry.get(TestQuery.class))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Multiple query handlers registered for:")
+            .hasMessageContaining("[shardA, shardB]");
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when no handler is registered under the given name")
+    void shouldThrowIllegalArgumentExceptionWhenNoHandlerRegisteredUnderName() {
+        // given
+        setupWithShards();
+        registry = new Registry(applicationContext);
+
+        // when & then
+        assertThatThrownBy(() -> registry.get(TestQuery.class, "shardC"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("No query handler named shardC registered for:");
+        assertThatThrownBy(() -> registry.get(AnotherTestQuery.class, "shardA"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.getHandlerNames(AnotherTestQuery.class)).isEmpty();
+    }
+
     @Test
     @DisplayName("should throw IllegalArgumentException when no handler registered for query type")
     void shouldThrowIllegalArgumentExceptionWhenNoHandlerRegisteredForQueryType() {
@@ -0,0 +1,306 @@
+package com.emedina.query.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.emedina.query.spring.fixtures.AnotherTestQuery;
+import com.emedina.query.spring.fixtures.TestQuery;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for ReplicaRouter.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("ReplicaRouter")
+class ReplicaRouterTest {
+
+    private static final List<String> REPLICAS = List.of("replicaA", "replicaB");
+
+    @Test
+    @DisplayName("should only route the pooled query types")
+    void shouldOnlyRoutePooledQueryTypes() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class));
+
+        // when & then
+        assertThat(router.routes(TestQuery.class)).isTrue();
+        assertThat(router.routes(AnotherTestQuery.class)).isFalse();
+        assertThat(ReplicaRouter.none().routes(TestQuery.class)).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(RoutingStrategy.class)
+    @DisplayName("should avoid the replica that is busy with a query in flight")
+    void shouldAvoidBusyReplica(final RoutingStrategy strategy) throws Exception {
+        // given
+        ReplicaRouter router = new ReplicaRouter(strategy, Set.of(TestQuery.class));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Either<String, String>> busy = CompletableFuture.supplyAsync(
+            () -> ReplicaRouterTest.<String, String>dispatch(router, () -> REPLICAS, name -> {
+                started.countDown();
+                await(release);
+                return Either.right(name);
+            }));
+        started.await();
+        String busyReplica = router.getStats(TestQuery.class).stream()
+            .filter(stats -> stats.inFlight() == 1)
+            .findFirst()
+            .orElseThrow()
+            .name();
+
+        // when
+        Either<String, String> result = dispatch(router, () -> REPLICAS, Either::right);
+        release.countDown();
+
+        // then
+        assertThat(result.get()).isNotEqualTo(busyReplica);
+        assertThat(busy.get().get()).isEqualTo(busyReplica);
+    }
+
+    @Test
+    @DisplayName("should report what it knows about each replica")
+    void shouldReportStatsOfEachReplica() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.POWER_OF_TWO_CHOICES, Set.of(TestQuery.class));
+        assertThat(router.getStats(TestQuery.class)).isEmpty();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            dispatch(router, () -> REPLICAS, Either::right);
+        }
+
+        // then
+        List<ReplicaStats> stats = router.getStats(TestQuery.class);
+        assertThat(stats).extracting(ReplicaStats::name).containsExactlyElementsOf(REPLICAS);
+        assertThat(stats.stream().mapToLong(ReplicaStats::selections).sum()).isEqualTo(100);
+        assertThat(stats).allSatisfy(replica -> {
+            assertThat(replica.inFlight()).isZero();
+            assertThat(replica.errorRate()).isZero();
+            assertThat(replica.ejected()).isFalse();
+            assertThat(replica.ejections()).isZero();
+        });
+    }
+
+    @Test
+    @DisplayName("should eject a failing replica and route everything to the healthy one")
+    void shouldEjectFailingReplica() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 5, Duration.ofHours(1)).withCountsAsError("replica down"::equals));
+        Function<String, Either<String, String>> call = name -> "replicaA".equals(name)
+            ? Either.left("replica down")
+            : Either.right(name);
+        for (int i = 0; i < 100; i++) {
+            dispatch(router, () -> REPLICAS, call);
+        }
+
+        // when
+        Map<String, Long> routed = IntStream.range(0, 50)
+            .mapToObj(i -> dispatch(router, () -> REPLICAS, call))
+            .collect(Collectors.groupingBy(result -> result.fold(error -> "replicaA", name -> name),
+                Collectors.counting()));
+
+        // then
+        assertThat(routed).containsOnlyKeys("replicaB");
+        ReplicaStats failing = router.getStats(TestQuery.class).get(0);
+        assertThat(failing.ejected()).isTrue();
+        assertThat(failing.ejections()).isEqualTo(1);
+        assertThat(failing.errorRate()).isGreaterThan(0.5);
+    }
+
+    @Test
+    @DisplayName("should not count ordinary lefts as errors by default")
+    void shouldNotCountLeftsAsErrorsByDefault() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 1, Duration.ofHours(1)));
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            dispatch(router, () -> REPLICAS, name -> Either.left("not found"));
+        }
+
+        // then
+        assertThat(router.getStats(TestQuery.class)).allSatisfy(replica -> {
+            assertThat(replica.errorRate()).isZero();
+            assertThat(replica.ejected()).isFalse();
+        });
+    }
+
+    @Test
+    @DisplayName("should only count the lefts the ejection policy classifies as errors")
+    void shouldOnlyCountClassifiedLeftsAsErrors() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 5, Duration.ofHours(1)).withCountsAsError("replica down"::equals));
+        Function<String, Either<String, String>> call = name -> "replicaA".equals(name)
+            ? Either.left("replica down")
+            : Either.left("not found");
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            dispatch(router, () -> REPLICAS, call);
+        }
+
+        // then
+        List<ReplicaStats> stats = router.getStats(TestQuery.class);
+        assertThat(stats.get(0).ejected()).isTrue();
+        assertThat(stats.get(1).ejected()).isFalse();
+        assertThat(stats.get(1).errorRate()).isZero();
+    }
+
+    @Test
+    @DisplayName("should admit an ejected replica again once its ejection time is over")
+    void shouldAdmitEjectedReplicaAgain() {
+        // given
+        AtomicLong clock = new AtomicLong();
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 1, Duration.ofSeconds(30)).withCountsAsError(left -> true), clock::get);
+        AtomicBoolean replicaAHealthy = new AtomicBoolean(false);
+        Function<String, Either<String, String>> call = name -> "replicaA".equals(name) && !replicaAHealthy.get()
+            ? Either.left("replica down")
+            : Either.right(name);
+        for (int i = 0; i < 50; i++) {
+            dispatch(router, () -> REPLICAS, call);
+        }
+        assertThat(router.getStats(TestQuery.class).get(0).ejected()).isTrue();
+        clock.addAndGet(Duration.ofSeconds(29).toNanos());
+        dispatch(router, () -> REPLICAS, call);
+        assertThat(router.getStats(TestQuery.class).get(0).ejected()).isTrue();
+
+        // when
+        replicaAHealthy.set(true);
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        dispatch(router, () -> REPLICAS, call);
+
+        // then
+        ReplicaStats readmitted = router.getStats(TestQuery.class).get(0);
+        assertThat(readmitted.ejected()).isFalse();
+        assertThat(readmitted.ejections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should never eject the last replica still routed to")
+    void shouldNeverEjectLastReplica() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.POWER_OF_TWO_CHOICES, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 1, Duration.ofHours(1)).withCountsAsError(left -> true));
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            dispatch(router, () -> REPLICAS, name -> Either.left("replica down"));
+        }
+
+        // then
+        assertThat(router.getStats(TestQuery.class)).filteredOn(ReplicaStats::ejected).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("should count exceptions as errors and propagate them")
+    void shouldCountExceptionsAsErrors() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class));
+
+        // when & then
+        assertThatThrownBy(() -> dispatch(router, () -> List.of("replicaA"), name -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(router.getStats(TestQuery.class)).singleElement().satisfies(stats -> {
+            assertThat(stats.inFlight()).isZero();
+            assertThat(stats.errorRate()).isPositive();
+        });
+    }
+
+    @Test
+    @DisplayName("should only measure a replica from the moment the query is admitted")
+    void shouldOnlyMeasureAdmittedQueries() {
+        // given
+        AtomicLong clock = new AtomicLong();
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 1, Duration.ofHours(1)).withCountsAsError(left -> true), clock::get);
+
+        // when
+        router.<String, String>dispatchAdmitted(TestQuery.class, () -> List.of("replicaA"), (name, admitted) -> {
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            return Either.left("rejected before admission");
+        });
+        router.<String, String>dispatchAdmitted(TestQuery.class, () -> List.of("replicaA"), (name, admitted) -> {
+            clock.addAndGet(Duration.ofSeconds(1).toNanos());
+            admitted.run();
+            clock.addAndGet(Duration.ofMillis(5).toNanos());
+            return Either.right(name);
+        });
+
+        // then
+        assertThat(router.getStats(TestQuery.class)).singleElement().satisfies(stats -> {
+            assertThat(stats.selections()).isEqualTo(2);
+            assertThat(stats.errorRate()).isZero();
+            assertThat(stats.averageLatency()).isEqualTo(Duration.ofMillis(5));
+        });
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when no handler is registered for a pooled query type")
+    void shouldThrowIllegalArgumentExceptionWhenNoHandlerIsRegistered() {
+        // given
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class));
+
+        // when & then
+        assertThatThrownBy(() -> dispatch(router, List::of, Either::right))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("No query handler registered for:");
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when the ejection policy is out of range")
+    void shouldThrowIllegalArgumentExceptionWhenEjectionPolicyIsOutOfRange() {
+        assertThatThrownBy(() -> new EjectionPolicy(1.5, 1, Duration.ofSeconds(1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Maximum error rate must be between 0 and 1: 1.5");
+        assertThatThrownBy(() -> new EjectionPolicy(0.5, 0, Duration.ofSeconds(1)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Minimum requests must be positive: 0");
+        assertThatThrownBy(() -> new EjectionPolicy(0.5, 1, Duration.ZERO))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Ejection time must be positive: PT0S");
+    }
+
+    private static <E, R> Either<E, R> dispatch(final ReplicaRouter router, final Supplier<List<String>> names,
+        final Function<String, Either<E, R>> call) {
+        return router.dispatchAdmitted(TestQuery.class, names, (name, admitted) -> {
+            admitted.run();
+            return call.apply(name);
+        });
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
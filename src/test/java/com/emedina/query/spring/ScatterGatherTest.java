@@ -0,0 +1,99 @@
+package com.emedina.query.spring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for ScatterGather.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("ScatterGather")
+class ScatterGatherTest {
+
+    private final ScatterGather<String, Integer> sum = ScatterGather.reducing(Integer::sum);
+
+    @Test
+    @DisplayName("should fan out to every handler and require all of them by default")
+    void shouldFanOutToEveryHandlerAndRequireAllByDefault() {
+        assertThat(sum.selector().test("anyShard")).isTrue();
+        assertThat(sum.policy()).isEqualTo(PartialFailurePolicy.REQUIRE_ALL);
+        assertThat(sum.shardTimeout()).isNull();
+        assertThat(sum.executor()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should reduce every right")
+    void shouldReduceEveryRight() {
+        // when
+        Either<String, Integer> result = sum.gather(List.of(Either.right(1), Either.right(2), Either.right(3)));
+
+        // then
+        assertThat(result.get()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("should return the first left when every handler is required")
+    void shouldReturnFirstLeftWhenEveryHandlerIsRequired() {
+        // when
+        Either<String, Integer> result = sum.gather(List.of(Either.right(1), Either.left("a"), Either.left("b")));
+
+        // then
+        assertThat(result.getLeft()).isEqualTo("a");
+    }
+
+    @Test
+    @DisplayName("should drop lefts when partial results are allowed")
+    void shouldDropLeftsWhenPartialResultsAreAllowed() {
+        // given
+        ScatterGather<String, Integer> partial = sum.withPolicy(PartialFailurePolicy.ALLOW_PARTIAL);
+
+        // when & then
+        assertThat(partial.gather(List.of(Either.left("a"), Either.right(2), Either.right(3))).get()).isEqualTo(5);
+        assertThat(partial.gather(List.of(Either.left("a"), Either.left("b"))).getLeft()).isEqualTo("a");
+    }
+
+    @Test
+    @DisplayName("should keep the rest of the description when refining it")
+    void shouldKeepRestOfDescriptionWhenRefining() {
+        // when
+        ScatterGather<String, Integer> refined = sum
+            .withSelector(name -> name.startsWith("eu-"))
+            .withShardTimeout(Duration.ofMillis(100), name -> name + " timed out")
+            .withExecutor(Runnable::run)
+            .withPolicy(PartialFailurePolicy.ALLOW_PARTIAL);
+
+        // then
+        assertThat(refined.reducer()).isSameAs(sum.reducer());
+        assertThat(refined.selector().test("eu-west")).isTrue();
+        assertThat(refined.selector().test("us-east")).isFalse();
+        assertThat(refined.shardTimeout()).isEqualTo(Duration.ofMillis(100));
+        assertThat(refined.timeoutError().apply("eu-west")).isEqualTo("eu-west timed out");
+        assertThat(refined.policy()).isEqualTo(PartialFailurePolicy.ALLOW_PARTIAL);
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when the shard timeout is not positive")
+    void shouldThrowIllegalArgumentExceptionWhenShardTimeoutIsNotPositive() {
+        assertThatThrownBy(() -> sum.withShardTimeout(Duration.ZERO, name -> "timeout"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Shard timeout must be positive: PT0S");
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when a shard timeout has no timeout error")
+    void shouldThrowIllegalArgumentExceptionWhenShardTimeoutHasNoTimeoutError() {
+        assertThatThrownBy(() -> sum.withShardTimeout(Duration.ofSeconds(1), null))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("A shard timeout requires a timeout error");
+    }
+
+}
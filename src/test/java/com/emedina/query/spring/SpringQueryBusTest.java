@@ -2,9 +2,22 @@ package com.emedina.query.spring;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,8 +25,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.emedina.query.spring.fixtures.AnotherTestQuery;
+import com.emedina.query.spring.fixtures.FailingTestQueryHandler;
+import com.emedina.query.spring.fixtures.NestingTestQueryHandler;
+import com.emedina.query.spring.fixtures.SizedTestQueryHandler;
+import com.emedina.query.spring.fixtures.SlowTestQueryHandler;
 import com.emedina.query.spring.fixtures.TestQuery;
 import com.emedina.query.spring.fixtures.TestQueryHandler;
+import com.emedina.query.spring.tracing.InMemorySpanExporter;
+import com.emedina.query.spring.tracing.QuerySpan;
+import com.emedina.query.spring.tracing.QueryTracer;
+import com.emedina.query.spring.tracing.Sampler;
+import com.emedina.sharedkernel.query.core.QueryHandler;
 
 import io.vavr.control.Either;
 
@@ -129,4 +152,330 @@ class SpringQueryBusTest {
             .isInstanceOf(NullPointerException.class);
     }
 
+    @Test
+    @DisplayName("should trace nested queries as children of the query that issued them")
+    void shouldTraceNestedQueriesAsChildren() {
+        // given
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        SpringQueryBus tracedBus = queryBus.withTracer(new QueryTracer(Sampler.always(), exporter));
+        when(registry.<Throwable, Integer, AnotherTestQuery>get(AnotherTestQuery.class))
+            .thenReturn(new NestingTestQueryHandler(tracedBus));
+        when(registry.<Throwable, String, TestQuery>get(TestQuery.class))
+            .thenReturn(new TestQueryHandler("nested result"));
+
+        // when
+        Either<Throwable, Integer> result = tracedBus.query(new AnotherTestQuery(7));
+
+        // then
+        assertThat(result.get()).isEqualTo("nested result".length());
+        List<QuerySpan> spans = exporter.getSpans();
+        assertThat(spans).extracting(QuerySpan::name).containsExactly("TestQuery", "AnotherTestQuery");
+        assertThat(spans.get(1).isRoot()).isTrue();
+        assertThat(spans.get(0).parentSpanId()).isEqualTo(spans.get(1).spanId());
+        assertThat(spans.get(0).traceId()).isEqualTo(spans.get(1).traceId());
+        assertThat(spans).extracting(QuerySpan::outcome).containsOnly(QuerySpan.Outcome.RIGHT);
+    }
+
+    @Test
+    @DisplayName("should record the span of a query whose handler lookup fails")
+    void shouldRecordSpanWhenHandlerLookupFails() {
+        // given
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        SpringQueryBus tracedBus = queryBus.withTracer(new QueryTracer(Sampler.always(), exporter));
+        when(registry.get(TestQuery.class)).thenThrow(new IllegalArgumentException("No query handler registered"));
+
+        // when & then
+        assertThatThrownBy(() -> tracedBus.query(new TestQuery("test message")))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(exporter.getSpans()).singleElement()
+            .extracting(QuerySpan::outcome)
+            .isEqualTo(QuerySpan.Outcome.ERROR);
+    }
+
+    @Test
+    @DisplayName("should scatter the query to every handler and reduce their rights in registration order")
+    void shouldScatterToEveryHandlerAndReduceRights() {
+        // given
+        TestQuery query = new TestQuery("test message");
+        TestQueryHandler shardA = new TestQueryHandler("a");
+        TestQueryHandler shardB = new TestQueryHandler("b");
+        givenShards(shardA, shardB);
+
+        // when
+        Either<Throwable, String> result = queryBus.scatter(query,
+            ScatterGather.<Throwable, String>reducing((left, right) -> left + "|" + right));
+
+        // then
+        assertThat(result.get()).isEqualTo("a|b");
+        assertThat(shardA.getLastQuery()).isEqualTo(query);
+        assertThat(shardB.getLastQuery()).isEqualTo(query);
+    }
+
+    @Test
+    @DisplayName("should only scatter the query to the selected handlers")
+    void shouldOnlyScatterToSelectedHandlers() {
+        // given
+        TestQueryHandler shardB = new TestQueryHandler("b");
+        when(registry.getHandlerNames(TestQuery.class)).thenReturn(List.of("shardA", "shardB"));
+        when(registry.<Throwable, String, TestQuery>get(TestQuery.class, "shardB")).thenReturn(shardB);
+
+        // when
+        Either<Throwable, String> result = queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat).withSelector("shardB"::equals));
+
+        // then
+        assertThat(result.get()).isEqualTo("b");
+        verify(registry, never()).get(eq(TestQuery.class), eq("shardA"));
+    }
+
+    @Test
+    @DisplayName("should return the first left when every handler is required to succeed")
+    void shouldReturnFirstLeftWhenEveryHandlerIsRequired() {
+        // given
+        IllegalStateException error = new IllegalStateException("shard down");
+        givenShards(new TestQueryHandler("a"), new FailingTestQueryHandler(error));
+
+        // when
+        Either<Throwable, String> result = queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat));
+
+        // then
+        assertThat(result.getLeft()).isSameAs(error);
+    }
+
+    @Test
+    @DisplayName("should reduce the remaining rights when partial results are allowed")
+    void shouldReduceRemainingRightsWhenPartialResultsAreAllowed() {
+        // given
+        givenShards(new FailingTestQueryHandler(new IllegalStateException("shard down")), new TestQueryHandler("b"),
+            new TestQueryHandler("c"));
+
+        // when
+        Either<Throwable, String> result = queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat)
+                .withPolicy(PartialFailurePolicy.ALLOW_PARTIAL));
+
+        // then
+        assertThat(result.get()).isEqualTo("bc");
+    }
+
+    @Test
+    @DisplayName("should return the first left when partial results are allowed but no handler succeeds")
+    void shouldReturnFirstLeftWhenNoHandlerSucceeds() {
+        // given
+        IllegalStateException first = new IllegalStateException("first");
+        givenShards(new FailingTestQueryHandler(first),
+            new FailingTestQueryHandler(new IllegalStateException("second")));
+
+        // when
+        Either<Throwable, String> result = queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat)
+                .withPolicy(PartialFailurePolicy.ALLOW_PARTIAL));
+
+        // then
+        assertThat(result.getLeft()).isSameAs(first);
+    }
+
+    @Test
+    @DisplayName("should time out a slow handler without waiting for it")
+    void shouldTimeOutSlowHandler() throws InterruptedException {
+        // given
+        SlowTestQueryHandler slow = new SlowTestQueryHandler("slow", Duration.ofSeconds(10));
+        givenShards(new TestQueryHandler("fast"), slow);
+        ScatterGather<Throwable, String> scatterGather = ScatterGather.<Throwable, String>reducing(String::concat)
+            .withShardTimeout(Duration.ofMillis(50), TimeoutException::new);
+
+        // when
+        long start = System.nanoTime();
+        Either<Throwable, String> required = queryBus.scatter(new TestQuery("test message"), scatterGather);
+        Either<Throwable, String> partial = queryBus.scatter(new TestQuery("test message"),
+            scatterGather.withPolicy(PartialFailurePolicy.ALLOW_PARTIAL));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        assertThat(required.getLeft()).isInstanceOf(TimeoutException.class).hasMessage("shardB");
+        assertThat(partial.get()).isEqualTo("fast");
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+        assertThat(slow.awaitInterrupted(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should return a left as soon as it completes without waiting for a slower handler")
+    void shouldReturnLeftWithoutWaitingForSlowerHandler() throws InterruptedException {
+        // given
+        IllegalStateException error = new IllegalStateException("shard down");
+        SlowTestQueryHandler slow = new SlowTestQueryHandler("slow", Duration.ofSeconds(10));
+        givenShards(slow, new FailingTestQueryHandler(error));
+
+        // when
+        long start = System.nanoTime();
+        Either<Throwable, String> result = queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then
+        assertThat(result.getLeft()).isSameAs(error);
+        assertThat(elapsed).isLessThan(Duration.ofSeconds(5));
+        assertThat(slow.awaitInterrupted(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should cancel the handlers already running when the fan-out fails")
+    void shouldCancelRunningHandlersWhenFanOutFails() throws InterruptedException {
+        // given
+        SlowTestQueryHandler slow = new SlowTestQueryHandler("slow", Duration.ofSeconds(10));
+        givenShards(slow, new TestQueryHandler("b"));
+        AtomicInteger submitted = new AtomicInteger();
+        Executor rejectingSecond = task -> {
+            if (submitted.incrementAndGet() > 1) {
+                throw new RejectedExecutionException("executor saturated");
+            }
+            Thread.ofVirtual().start(task);
+        };
+
+        // when & then
+        assertThatThrownBy(() -> queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat).withExecutor(rejectingSecond)))
+            .isInstanceOf(RejectedExecutionException.class);
+        assertThat(slow.awaitInterrupted(Duration.ofSeconds(5))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should propagate the exception thrown by a handler")
+    void shouldPropagateExceptionThrownByHandler() {
+        // given
+        TestQueryHandler throwing = new TestQueryHandler() {
+            @Override
+            public Either<Throwable, String> handle(TestQuery query) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        givenShards(new TestQueryHandler("a"), throwing);
+
+        // when & then
+        assertThatThrownBy(() -> queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("boom");
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when no handler is selected")
+    void shouldThrowIllegalArgumentExceptionWhenNoHandlerIsSelected() {
+        // given
+        when(registry.getHandlerNames(TestQuery.class)).thenReturn(List.of("shardA"));
+
+        // when & then
+        assertThatThrownBy(() -> queryBus.scatter(new TestQuery("test message"),
+            ScatterGather.<Throwable, String>reducing(String::concat).withSelector(name -> false)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("No query handler selected for:");
+        verify(registry, never()).get(eq(TestQuery.class), anyString());
+    }
+
+    @Test
+    @DisplayName("should trace each handler of a scatter-gather query as a child span")
+    void shouldTraceEachHandlerAsChildSpan() {
+        // given
+        InMemorySpanExporter exporter = new InMemorySpanExporter();
+        SpringQueryBus tracedBus = queryBus.withTracer(new QueryTracer(Sampler.always(), exporter));
+        givenShards(new TestQueryHandler("a"), new TestQueryHandler("b"));
+
+        // when
+        tracedBus.scatter(new TestQuery("test message"), ScatterGather.<Throwable, String>reducing(String::concat));
+
+        // then
+        List<QuerySpan> spans = exporter.getSpans();
+        QuerySpan root = spans.get(spans.size() - 1);
+        assertThat(root.name()).isEqualTo("TestQuery");
+        assertThat(spans.subList(0, 2))
+            .extracting(QuerySpan::name)
+            .containsExactlyInAnyOrder("TestQuery[shardA]", "TestQuery[shardB]");
+        assertThat(spans.subList(0, 2)).allSatisfy(span -> {
+            assertThat(span.parentSpanId()).isEqualTo(root.spanId());
+            assertThat(span.traceId()).isEqualTo(root.traceId());
+        });
+    }
+
+    @Test
+    @DisplayName("should route a pooled query to one of its replica handlers")
+    void shouldRoutePooledQueryToOneReplica() {
+        // given
+        TestQueryHandler replicaA = new TestQueryHandler("a");
+        TestQueryHandler replicaB = new TestQueryHandler("b");
+        when(registry.getHandlerNames(TestQuery.class)).thenReturn(List.of("replicaA", "replicaB"));
+        lenient().when(registry.<Throwable, String, TestQuery>get(TestQuery.class, "replicaA")).thenReturn(replicaA);
+        lenient().when(registry.<Throwable, String, TestQuery>get(TestQuery.class, "replicaB")).thenReturn(replicaB);
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.POWER_OF_TWO_CHOICES, Set.of(TestQuery.class));
+        SpringQueryBus routingBus = queryBus.withRouter(router);
+
+        // when
+        Either<Throwable, String> result = routingBus.query(new TestQuery("test message"));
+
+        // then
+        assertThat(result.get()).isIn("a", "b");
+        assertThat(replicaA.wasExecuted() ^ replicaB.wasExecuted()).isTrue();
+        assertThat(router.getStats(TestQuery.class)).extracting(ReplicaStats::selections).containsAnyOf(1L);
+        verify(registry, never()).get(TestQuery.class);
+    }
+
+    @Test
+    @DisplayName("should return the handler's left when the memory budget cannot accommodate the query")
+    void shouldReturnLeftWhenMemoryBudgetIsExceeded() {
+        // given
+        SizedTestQueryHandler handler = new SizedTestQueryHandler("huge result", 64 * 1024);
+        when(registry.<Throwable, String, TestQuery>get(TestQuery.class)).thenReturn(handler);
+        MemoryBudget budget = new MemoryBudget(32 * 1024, Duration.ZERO);
+        SpringQueryBus budgetedBus = queryBus.withMemoryBudget(budget);
+
+        // when
+        Either<Throwable, String> result = budgetedBus.query(new TestQuery("test message"));
+
+        // then
+        assertThat(result.getLeft()).hasMessage("Memory budget exceeded: 65536 bytes");
+        assertThat(handler.wasExecuted()).isFalse();
+        assertThat(budget.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should not count memory budget rejections against the replica handlers")
+    void shouldNotCountMemoryBudgetRejectionsAgainstReplicas() {
+        // given
+        SizedTestQueryHandler replicaA = new SizedTestQueryHandler("a", 64 * 1024);
+        SizedTestQueryHandler replicaB = new SizedTestQueryHandler("b", 64 * 1024);
+        when(registry.getHandlerNames(TestQuery.class)).thenReturn(List.of("replicaA", "replicaB"));
+        lenient().when(registry.<Throwable, String, TestQuery>get(TestQuery.class, "replicaA")).thenReturn(replicaA);
+        lenient().when(registry.<Throwable, String, TestQuery>get(TestQuery.class, "replicaB")).thenReturn(replicaB);
+        ReplicaRouter router = new ReplicaRouter(RoutingStrategy.LEAST_OUTSTANDING, Set.of(TestQuery.class),
+            new EjectionPolicy(0.5, 1, Duration.ofHours(1)).withCountsAsError(left -> true));
+        MemoryBudget budget = new MemoryBudget(32 * 1024, Duration.ZERO);
+        SpringQueryBus budgetedBus = queryBus.withRouter(router).withMemoryBudget(budget);
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            assertThat(budgetedBus.<Throwable, String, TestQuery>query(new TestQuery("test message")).isLeft())
+                .isTrue();
+        }
+
+        // then
+        assertThat(budget.getRejections()).isEqualTo(20);
+        assertThat(router.getStats(TestQuery.class)).allSatisfy(replica -> {
+            assertThat(replica.errorRate()).isZero();
+            assertThat(replica.ejected()).isFalse();
+            assertThat(replica.inFlight()).isZero();
+            assertThat(replica.averageLatency()).isEqualTo(Duration.ZERO);
+        });
+    }
+
+    @SafeVarargs
+    private void givenShards(final QueryHandler<Throwable, String, TestQuery>... handlers) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < handlers.length; i++) {
+            String name = "shard" + (char) ('A' + i);
+            names.add(name);
+            when(registry.<Throwable, String, TestQuery>get(TestQuery.class, name)).thenReturn(handlers[i]);
+        }
+        when(registry.getHandlerNames(TestQuery.class)).thenReturn(names);
+    }
+
 }
@@ -0,0 +1,25 @@
+package com.emedina.query.spring.fixtures;
+
+import com.emedina.sharedkernel.query.core.QueryHandler;
+
+import io.vavr.control.Either;
+
+/**
+ * Test query handler fixture that always returns a left.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class FailingTestQueryHandler implements QueryHandler<Throwable, String, TestQuery> {
+
+    private final Throwable error;
+
+    public FailingTestQueryHandler(Throwable error) {
+        this.error = error;
+    }
+
+    @Override
+    public Either<Throwable, String> handle(TestQuery query) {
+        return Either.left(error);
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.emedina.query.spring.fixtures;
+
+import com.emedina.sharedkernel.query.core.QueryBus;
+import com.emedina.sharedkernel.query.core.QueryHandler;
+
+import io.vavr.control.Either;
+
+/**
+ * Test query handler fixture that issues a nested {@link TestQuery} through the query bus.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class NestingTestQueryHandler implements QueryHandler<Throwable, Integer, AnotherTestQuery> {
+
+    private final QueryBus queryBus;
+
+    public NestingTestQueryHandler(QueryBus queryBus) {
+        this.queryBus = queryBus;
+    }
+
+    @Override
+    public Either<Throwable, Integer> handle(AnotherTestQuery query) {
+        Either<Throwable, String> nested = queryBus.query(new TestQuery("nested " + query.getValue()));
+        return nested.map(String::length);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.emedina.query.spring.fixtures;
+
+import com.emedina.query.spring.MemoryBudgetExceeded;
+import com.emedina.query.spring.ResultSizeAware;
+
+/**
+ * Test query handler fixture that declares the size of its results, for testing the memory budget.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class SizedTestQueryHandler extends TestQueryHandler
+    implements ResultSizeAware<Throwable, String, TestQuery> {
+
+    private final long estimatedBytes;
+
+    public SizedTestQueryHandler(String result, long estimatedBytes) {
+        super(result);
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    @Override
+    public long estimateResultBytes(TestQuery query) {
+        return estimatedBytes;
+    }
+
+    @Override
+    public Throwable onBudgetExceeded(MemoryBudgetExceeded rejection) {
+        return new IllegalStateException("Memory budget exceeded: " + rejection.requestedBytes() + " bytes");
+    }
+
+    @Override
+    public long measureResultBytes(String result) {
+        return result == null ? -1 : result.length() * 2L;
+    }
+
+}
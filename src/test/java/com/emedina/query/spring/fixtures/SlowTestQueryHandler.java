@@ -0,0 +1,40 @@
+package com.emedina.query.spring.fixtures;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.vavr.control.Either;
+
+/**
+ * Test query handler fixture that takes a given amount of time to answer, for testing timeouts.
+ *
+ * @author Enrique Medina Montenegro
+ */
+public class SlowTestQueryHandler extends TestQueryHandler {
+
+    private final Duration delay;
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    public SlowTestQueryHandler(String result, Duration delay) {
+        super(result);
+        this.delay = delay;
+    }
+
+    @Override
+    public Either<Throwable, String> handle(TestQuery query) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            Thread.currentThread().interrupt();
+            return Either.left(e);
+        }
+        return super.handle(query);
+    }
+
+    public boolean awaitInterrupted(Duration timeout) throws InterruptedException {
+        return interrupted.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+}
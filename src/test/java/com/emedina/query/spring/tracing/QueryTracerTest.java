@@ -0,0 +1,146 @@
+package com.emedina.query.spring.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for QueryTracer.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("QueryTracer")
+class QueryTracerTest {
+
+    private InMemorySpanExporter exporter;
+    private QueryTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new InMemorySpanExporter();
+        tracer = new QueryTracer(Sampler.always(), exporter);
+    }
+
+    @Test
+    @DisplayName("should record a root span when the handler returns a right")
+    void shouldRecordRootSpanWhenHandlerReturnsRight() {
+        // when
+        Either<String, Integer> result = tracer.trace("TestQuery", () -> Either.right(42));
+
+        // then
+        assertThat(result.get()).isEqualTo(42);
+        assertThat(exporter.getSpans()).singleElement().satisfies(span -> {
+            assertThat(span.name()).isEqualTo("TestQuery");
+            assertThat(span.isRoot()).isTrue();
+            assertThat(span.traceId()).isNotZero();
+            assertThat(span.spanId()).isNotZero();
+            assertThat(span.start()).isNotNull();
+            assertThat(span.duration()).isNotNegative();
+            assertThat(span.outcome()).isEqualTo(QuerySpan.Outcome.RIGHT);
+        });
+    }
+
+    @Test
+    @DisplayName("should record the outcome of a left")
+    void shouldRecordOutcomeOfLeft() {
+        // when
+        tracer.trace("TestQuery", () -> Either.left("not found"));
+
+        // then
+        assertThat(exporter.getSpans()).singleElement()
+            .extracting(QuerySpan::outcome)
+            .isEqualTo(QuerySpan.Outcome.LEFT);
+    }
+
+    @Test
+    @DisplayName("should record an error and rethrow when the dispatch throws")
+    void shouldRecordErrorAndRethrowWhenDispatchThrows() {
+        // when & then
+        assertThatThrownBy(() -> tracer.trace("TestQuery", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(exporter.getSpans()).singleElement()
+            .extracting(QuerySpan::outcome)
+            .isEqualTo(QuerySpan.Outcome.ERROR);
+    }
+
+    @Test
+    @DisplayName("should link nested queries to the query that issued them")
+    void shouldLinkNestedQueriesToTheirParent() {
+        // when
+        tracer.trace("Outer", () -> tracer.trace("Inner", () -> Either.right("inner")));
+
+        // then
+        List<QuerySpan> spans = exporter.getSpans();
+        assertThat(spans).extracting(QuerySpan::name).containsExactly("Inner", "Outer");
+        QuerySpan inner = spans.get(0);
+        QuerySpan outer = spans.get(1);
+        assertThat(outer.isRoot()).isTrue();
+        assertThat(inner.parentSpanId()).isEqualTo(outer.spanId());
+        assertThat(inner.traceId()).isEqualTo(outer.traceId());
+        assertThat(inner.spanId()).isNotEqualTo(outer.spanId());
+    }
+
+    @Test
+    @DisplayName("should only sample root queries and let nested queries follow their decision")
+    void shouldOnlySampleRootQueries() {
+        // given
+        AtomicInteger decisions = new AtomicInteger();
+        QueryTracer sampledOnce = new QueryTracer(() -> decisions.incrementAndGet() > 1, exporter);
+
+        // when
+        sampledOnce.trace("Outer", () -> sampledOnce.trace("Inner", () -> Either.right("inner")));
+
+        // then
+        assertThat(decisions).hasValue(1);
+        assertThat(exporter.getSpans()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should neither record spans nor bind a context when using the no-op tracer")
+    void shouldNotRecordAnythingWithNoopTracer() {
+        // when
+        Either<String, Boolean> result = QueryTracer.noop()
+            .trace("TestQuery", () -> Either.right(TraceContext.current() == null));
+
+        // then
+        assertThat(result.get()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should not fail the query when the exporter throws")
+    void shouldNotFailQueryWhenExporterThrows() {
+        // given
+        QueryTracer faulty = new QueryTracer(Sampler.always(), span -> {
+            throw new IllegalStateException("backend down");
+        });
+
+        // when
+        Either<String, Integer> result = faulty.trace("TestQuery", () -> Either.right(1));
+
+        // then
+        assertThat(result.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should forget exported spans on reset")
+    void shouldForgetExportedSpansOnReset() {
+        // given
+        tracer.trace("TestQuery", () -> Either.right(1));
+
+        // when
+        exporter.reset();
+
+        // then
+        assertThat(exporter.getSpans()).isEmpty();
+    }
+
+}
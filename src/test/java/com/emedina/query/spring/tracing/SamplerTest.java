@@ -0,0 +1,71 @@
+package com.emedina.query.spring.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for Sampler.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("Sampler")
+class SamplerTest {
+
+    @Test
+    @DisplayName("should always sample")
+    void shouldAlwaysSample() {
+        assertThat(Sampler.always().sample()).isTrue();
+    }
+
+    @Test
+    @DisplayName("should never sample")
+    void shouldNeverSample() {
+        assertThat(Sampler.never().sample()).isFalse();
+    }
+
+    @Test
+    @DisplayName("should sample everything or nothing at the bounds of the ratio")
+    void shouldSampleEverythingOrNothingAtTheBounds() {
+        // given
+        Sampler all = Sampler.ratio(1.0);
+        Sampler none = Sampler.ratio(0.0);
+
+        // when & then
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(all.sample()).isTrue();
+            assertThat(none.sample()).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("should sample roughly the given fraction of traces")
+    void shouldSampleRoughlyTheGivenFraction() {
+        // given
+        Sampler sampler = Sampler.ratio(0.25);
+
+        // when
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+
+        // then
+        assertThat(sampled).isBetween(2_000, 3_000);
+    }
+
+    @Test
+    @DisplayName("should throw IllegalArgumentException when ratio is out of range")
+    void shouldThrowIllegalArgumentExceptionWhenRatioIsOutOfRange() {
+        assertThatThrownBy(() -> Sampler.ratio(1.5))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Sampling ratio must be between 0 and 1: 1.5");
+        assertThatThrownBy(() -> Sampler.ratio(Double.NaN))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
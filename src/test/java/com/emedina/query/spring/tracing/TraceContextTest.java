@@ -0,0 +1,134 @@
+package com.emedina.query.spring.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.vavr.control.Either;
+
+/**
+ * Unit tests for TraceContext.
+ *
+ * @author Enrique Medina Montenegro
+ */
+@DisplayName("TraceContext")
+class TraceContextTest {
+
+    private InMemorySpanExporter exporter;
+    private QueryTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new InMemorySpanExporter();
+        tracer = new QueryTracer(Sampler.always(), exporter);
+    }
+
+    @Test
+    @DisplayName("should return the task itself when no span is in progress")
+    void shouldReturnTaskItselfWhenNoSpanInProgress() {
+        // given
+        Runnable runnable = () -> {
+        };
+        Callable<String> callable = () -> "result";
+
+        // when & then
+        assertThat(TraceContext.wrap(runnable)).isSameAs(runnable);
+        assertThat(TraceContext.wrap(callable)).isSameAs(callable);
+    }
+
+    @Test
+    @DisplayName("should propagate the span to a wrapped task running on a virtual thread")
+    void shouldPropagateSpanToWrappedRunnableOnVirtualThread() {
+        // when
+        tracer.trace("Outer", () -> {
+            Runnable inner = () -> tracer.trace("Inner", () -> Either.right("inner"));
+            join(Thread.ofVirtual().start(TraceContext.wrap(inner)));
+            return Either.right("outer");
+        });
+
+        // then
+        assertNestedSpans();
+    }
+
+    @Test
+    @DisplayName("should propagate the span to a wrapped callable submitted to a platform thread pool")
+    void shouldPropagateSpanToWrappedCallableOnPlatformThread() {
+        // given
+        try (ExecutorService executor = Executors.newFixedThreadPool(1)) {
+
+            // when
+            tracer.trace("Outer", () -> {
+                Callable<Either<String, String>> inner = () -> tracer.trace("Inner", () -> Either.right("inner"));
+                return Either.right(getUnchecked(executor.submit(TraceContext.wrap(inner))));
+            });
+        }
+
+        // then
+        assertNestedSpans();
+    }
+
+    @Test
+    @DisplayName("should propagate the span through a decorated executor")
+    void shouldPropagateSpanThroughDecoratedExecutor() {
+        // given
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            // when
+            tracer.trace("Outer", () -> {
+                CompletableFuture.runAsync(() -> tracer.trace("Inner", () -> Either.right("inner")),
+                    TraceContext.propagating(executor)).join();
+                return Either.right("outer");
+            });
+        }
+
+        // then
+        assertNestedSpans();
+    }
+
+    @Test
+    @DisplayName("should not leak the span to tasks that are not wrapped")
+    void shouldNotLeakSpanToTasksThatAreNotWrapped() {
+        // when
+        tracer.trace("Outer", () -> {
+            join(Thread.ofVirtual().start(() -> tracer.trace("Detached", () -> Either.right("detached"))));
+            return Either.right("outer");
+        });
+
+        // then
+        assertThat(exporter.getSpans()).allSatisfy(span -> assertThat(span.isRoot()).isTrue());
+    }
+
+    private void assertNestedSpans() {
+        assertThat(exporter.getSpans()).extracting(QuerySpan::name).containsExactly("Inner", "Outer");
+        QuerySpan inner = exporter.getSpans().get(0);
+        QuerySpan outer = exporter.getSpans().get(1);
+        assertThat(inner.parentSpanId()).isEqualTo(outer.spanId());
+        assertThat(inner.traceId()).isEqualTo(outer.traceId());
+    }
+
+    private static void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> T getUnchecked(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}